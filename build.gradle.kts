@@ -1,6 +1,7 @@
 plugins {
     java
     id("org.graalvm.buildtools.native") version "0.9.24"
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 group = "org.example"
@@ -31,6 +32,30 @@ graalvmNative {
     }
 }
 
+jmh {
+    jmhVersion.set("1.36")
+    project.findProperty("jmhIncludes")?.let { includes.set(listOf(it.toString())) }
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results-${project.version}.json"))
+}
+
+tasks.test {
+    val stubs = file("src/test/resources/bin").path
+    environment("PATH", listOf(stubs, System.getenv("PATH")).joinToString(File.pathSeparator))
+}
+
+tasks.register<JavaExec>("macroBenchmark") {
+    group = "benchmark"
+    description = "Runs the export end-to-end against stub xcrun, xcodebuild and sips"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("io.eroshenkoam.xcresults.benchmark.MacroBenchmark")
+    listOf("macroScenarios", "macroLatencyMillis", "macroPayloadSize", "macroParallelism").forEach { name ->
+        project.findProperty(name)?.let { systemProperty(name, it.toString()) }
+    }
+    systemProperty("macroReport", layout.buildDirectory.file("reports/macro/results-${project.version}.json").get().asFile.path)
+}
+
 repositories {
     mavenCentral()
 }
@@ -43,6 +68,7 @@ dependencies {
     implementation("org.freemarker:freemarker:2.3.32")
     implementation("info.picocli:picocli:4.1.4")
     implementation("commons-io:commons-io:2.6")
+    implementation("io.airlift:aircompressor:0.25")
 
     testImplementation("junit:junit:4.12")
 }
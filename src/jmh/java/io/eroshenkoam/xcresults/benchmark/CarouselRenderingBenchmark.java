@@ -0,0 +1,90 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+import freemarker.template.TemplateException;
+import io.eroshenkoam.xcresults.carousel.Carousel;
+import io.eroshenkoam.xcresults.carousel.CarouselImage;
+import io.eroshenkoam.xcresults.util.FreemarkerUtil;
+import io.eroshenkoam.xcresults.util.TemplateRenderer;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders 10k carousels with the shared renderer and, for comparison, with a new configuration
+ * and template per carousel rendered to an intermediate string, as carousels were rendered before.
+ * Scores are per carousel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CarouselRenderingBenchmark {
+
+    private static final int CAROUSELS = 10_000;
+    private static final int IMAGES = 5;
+    private static final String TEMPLATE = "templates/carousel.ftl";
+
+    private final TemplateRenderer renderer = new TemplateRenderer(FreemarkerUtil.getDefaultConfiguration());
+
+    private Path outputPath;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setUp() throws IOException {
+        outputPath = Files.createTempDirectory("carousel-benchmark");
+        final List<CarouselImage> images = new ArrayList<>();
+        for (int i = 0; i < IMAGES; i++) {
+            final String source = String.format("%s-attachment.jpeg", i);
+            images.add(new CarouselImage(String.format("Screenshot %s", i), source));
+        }
+        data = Map.of("carousel", new Carousel(images));
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtils.deleteQuietly(outputPath.toFile());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CAROUSELS)
+    public void renderer() throws IOException, TemplateException {
+        for (int i = 0; i < CAROUSELS; i++) {
+            renderer.render(renderer.getTemplate(TEMPLATE), data, getCarouselPath(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CAROUSELS)
+    public void configurationPerCarousel() throws IOException, TemplateException {
+        for (int i = 0; i < CAROUSELS; i++) {
+            final String content = FreemarkerUtil.render(TEMPLATE, data);
+            Files.write(getCarouselPath(i), content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private Path getCarouselPath(final int index) {
+        return outputPath.resolve(String.format("%s-attachment.html", index % 100));
+    }
+
+}
@@ -0,0 +1,112 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+import io.eroshenkoam.xcresults.export.AllureDirectives;
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Link;
+import io.qameta.allure.model.TestResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Directive table against the regular expressions that were compiled for every activity title before.
+ * Titles are mostly ordinary steps with an occasional directive, as in real UI tests.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectivesBenchmark {
+
+    private static final String[] TITLES = {
+        "Tap \"Login\" Button",
+        "Type \"user@example.com\" into \"Email\" TextField",
+        "Wait for com.example.app to idle",
+        "Find the \"Settings\" Cell",
+        "allure.label.owner: mobile-team",
+        "Swipe up \"Feed\" ScrollView",
+        "Check for interrupting elements affecting \"Profile\" Button",
+        "allure.link.issue[jira]:https://jira.example.com/browse/APP-1",
+    };
+
+    private final AllureDirectives directives = AllureDirectives.defaults();
+
+    private TestResult result;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        result = new TestResult()
+                .setLabels(new ArrayList<>())
+                .setLinks(new ArrayList<>());
+    }
+
+    @Benchmark
+    public boolean directives() {
+        return directives.apply(nextTitle(), result);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return applyRegex(nextTitle(), result);
+    }
+
+    private String nextTitle() {
+        next = (next + 1) % TITLES.length;
+        if (next == 0) {
+            result.getLabels().clear();
+            result.getLinks().clear();
+        }
+        return TITLES[next];
+    }
+
+    private static boolean applyRegex(final String title, final TestResult result) {
+        final Matcher idMatcher = Pattern.compile("allure\\.id:(?<id>.*)").matcher(title);
+        if (idMatcher.matches()) {
+            result.getLabels().add(new Label().setName("AS_ID").setValue(idMatcher.group("id")));
+            return true;
+        }
+        final Matcher nameMatcher = Pattern.compile("allure\\.name:(?<name>.*)").matcher(title);
+        if (nameMatcher.matches()) {
+            result.setName(nameMatcher.group("name"));
+            return true;
+        }
+        final Matcher descriptionMatcher = Pattern.compile("allure\\.description:(?<description>.*)").matcher(title);
+        if (descriptionMatcher.matches()) {
+            result.setDescription(descriptionMatcher.group("description"));
+            return true;
+        }
+        final Matcher labelMatcher = Pattern.compile("allure\\.label\\.(?<name>.*?):(?<value>.*)").matcher(title);
+        if (labelMatcher.matches()) {
+            result.getLabels().add(new Label()
+                    .setName(labelMatcher.group("name"))
+                    .setValue(labelMatcher.group("value").trim()));
+            return true;
+        }
+        final Matcher linkMatcher = Pattern.compile("allure\\.link\\.(?<name>.*?)(|\\[(?<type>.*)]):(?<url>.*)")
+                .matcher(title);
+        if (linkMatcher.matches()) {
+            result.getLinks().add(new Link()
+                    .setName(linkMatcher.group("name"))
+                    .setType(linkMatcher.group("type"))
+                    .setUrl(linkMatcher.group("url").trim()));
+            return true;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,130 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.eroshenkoam.xcresults.export.Allure2ExportFormatter;
+import io.eroshenkoam.xcresults.export.ExportMeta;
+import io.eroshenkoam.xcresults.model.ActionTestAttachment;
+import io.eroshenkoam.xcresults.model.ActionTestSummary;
+import io.eroshenkoam.xcresults.model.XcResultReader;
+import io.qameta.allure.model.TestResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a single test through the export hot path: parsing its summary, formatting it
+ * into a test result and serializing the result. Every operation is one test, so the {@code gc}
+ * profiler reports the allocation rate per test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatterBenchmark {
+
+    @Param("100")
+    private int tests;
+
+    @Param({"2", "4"})
+    private int depth;
+
+    @Param("4")
+    private int fanOut;
+
+    @Param({"0.0", "0.05"})
+    private double failureDensity;
+
+    @Param({"0.0", "0.2"})
+    private double attachmentDensity;
+
+    private final JsonFactory factory = new JsonFactory();
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+
+    private final Allure2ExportFormatter formatter = new Allure2ExportFormatter();
+
+    private final ExportMeta meta = new ExportMeta()
+            .label("suite", "Benchmark")
+            .setStart(1709631880000L);
+
+    private List<byte[]> json;
+    private List<ActionTestSummary> summaries;
+    private List<TestResult> results;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = new SummaryGenerator()
+                .setTests(tests)
+                .setDepth(depth)
+                .setFanOut(fanOut)
+                .setFailureDensity(failureDensity)
+                .setAttachmentDensity(attachmentDensity)
+                .generate();
+        summaries = new ArrayList<>(tests);
+        results = new ArrayList<>(tests);
+        for (byte[] summary : json) {
+            final ActionTestSummary parsed = read(summary);
+            summaries.add(parsed);
+            results.add(formatter.format(meta, parsed, new HashMap<>()));
+        }
+    }
+
+    @Benchmark
+    public ActionTestSummary parse() throws IOException {
+        return read(json.get(nextTest()));
+    }
+
+    @Benchmark
+    public Map<String, ActionTestAttachment> format() {
+        final Map<String, ActionTestAttachment> attachments = new HashMap<>();
+        formatter.format(meta, summaries.get(nextTest()), attachments);
+        return attachments;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(results.get(nextTest()));
+    }
+
+    @Benchmark
+    public byte[] parseFormatSerialize() throws IOException {
+        final ActionTestSummary summary = read(json.get(nextTest()));
+        return mapper.writeValueAsBytes(formatter.format(meta, summary, new HashMap<>()));
+    }
+
+    private ActionTestSummary read(final byte[] summary) throws IOException {
+        try (JsonParser parser = factory.createParser(summary)) {
+            parser.nextToken();
+            return XcResultReader.readTestSummary(parser);
+        }
+    }
+
+    private int nextTest() {
+        final int test = next;
+        next = (next + 1) % tests;
+        return test;
+    }
+
+}
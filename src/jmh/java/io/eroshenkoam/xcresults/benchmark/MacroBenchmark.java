@@ -0,0 +1,205 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.eroshenkoam.xcresults.XCResults;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs the real export command end-to-end against stub {@code xcrun}, {@code xcodebuild} and {@code sips}
+ * placed on {@code PATH}, so scalability of the export can be checked without Xcode.
+ * <p>
+ * Every scenario is exported in a separate JVM, its wall time, number of stub calls and peak RSS
+ * are reported together with the export metrics. Peak RSS is read from {@code /proc} and is only
+ * available on Linux. Configured with system properties:
+ * <ul>
+ *     <li>{@code macroScenarios} - comma separated {@link MacroScenario} values</li>
+ *     <li>{@code macroLatencyMillis} - latency of every stub {@code xcrun} call</li>
+ *     <li>{@code macroPayloadSize} - size of every exported attachment in bytes</li>
+ *     <li>{@code macroParallelism} - {@code --parallelism} of the export</li>
+ *     <li>{@code macroReport} - json report file</li>
+ * </ul>
+ */
+public final class MacroBenchmark {
+
+    private static final String DEFAULT_SCENARIOS = "tests-1k,screenshots,multi-bundle";
+    private static final String[] STUBS = {"xcrun", "xcodebuild", "sips"};
+    private static final long RSS_POLL_MILLIS = 50;
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final long latencyMillis = Long.getLong("macroLatencyMillis", 5);
+    private final int payloadSize = Integer.getInteger("macroPayloadSize", 64 * 1024);
+    private final int parallelism = Integer.getInteger("macroParallelism", Runtime.getRuntime().availableProcessors());
+
+    private MacroBenchmark() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final List<MacroScenario> scenarios = new ArrayList<>();
+        for (String value : System.getProperty("macroScenarios", DEFAULT_SCENARIOS).split(",")) {
+            scenarios.add(MacroScenario.fromValue(value.trim()));
+        }
+        final Path report = Paths.get(System.getProperty("macroReport", "macro-benchmark.json"));
+        new MacroBenchmark().run(scenarios, report);
+    }
+
+    private void run(final List<MacroScenario> scenarios, final Path report) throws Exception {
+        final ArrayNode results = mapper.createArrayNode();
+        final Path workDir = Files.createTempDirectory("xcresults-macro");
+        try {
+            for (MacroScenario scenario : scenarios) {
+                results.add(run(scenario, workDir.resolve(scenario.getValue())));
+            }
+        } finally {
+            FileUtils.deleteQuietly(workDir.toFile());
+        }
+        if (Objects.nonNull(report.getParent())) {
+            Files.createDirectories(report.getParent());
+        }
+        mapper.writeValue(report.toFile(), mapper.createObjectNode()
+                .put("latencyMillis", latencyMillis)
+                .put("payloadSize", payloadSize)
+                .put("parallelism", parallelism)
+                .set("scenarios", results));
+        System.out.printf("Report written to [%s]%n", report);
+    }
+
+    private ObjectNode run(final MacroScenario scenario, final Path workDir) throws Exception {
+        System.out.printf("Generating %s tests in %s bundles for [%s]...%n",
+                scenario.getTests(), scenario.getBundles(), scenario.getValue());
+        final Path bin = installStubs(workDir.resolve("bin"));
+        final Path data = workDir.resolve("data");
+        final Path output = workDir.resolve("output");
+        final Path metrics = workDir.resolve("metrics.json");
+        final Path log = workDir.resolve("export.log");
+        final Path calls = workDir.resolve("calls.log");
+
+        final List<String> command = new ArrayList<>(List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Duser.home=" + Files.createDirectories(workDir.resolve("home")),
+                "-cp", System.getProperty("java.class.path"),
+                XCResults.class.getName(), "export"
+        ));
+        for (int bundle = 0; bundle < scenario.getBundles(); bundle++) {
+            final String name = String.format("Tests-%s.xcresult", bundle);
+            StubBundleWriter.write(data.resolve(name), scenario.getGenerator(bundle), payloadSize);
+            command.add(Files.createDirectories(workDir.resolve("bundles").resolve(name)).toString());
+        }
+        command.addAll(List.of(
+                "-o", output.toString(),
+                "--metrics", metrics.toString(),
+                "--parallelism", String.valueOf(parallelism)
+        ));
+
+        final ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+        final Map<String, String> environment = builder.environment();
+        environment.put("PATH", bin + File.pathSeparator + environment.getOrDefault("PATH", ""));
+        environment.put("DEVELOPER_DIR", Files.createDirectories(workDir.resolve("developer")).toString());
+        environment.put("XCRESULTS_STUB_DATA", data.toString());
+        environment.put("XCRESULTS_STUB_LOG", calls.toString());
+        environment.put("XCRESULTS_STUB_LATENCY", String.format(Locale.ROOT, "%.3f", latencyMillis / 1000.0));
+
+        System.out.printf("Exporting [%s]...%n", scenario.getValue());
+        final long start = System.nanoTime();
+        final Process process = builder.start();
+        long peakRss = -1;
+        while (!process.waitFor(RSS_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            peakRss = Math.max(peakRss, readPeakRss(process.pid()));
+        }
+        final long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        final long processes = countLines(calls);
+        final long results = countResults(output);
+
+        System.out.printf("%s: %s tests in %s ms, %s stub calls, peak RSS %s%n",
+                scenario.getValue(), results, wallMillis, processes,
+                peakRss < 0 ? "unknown" : FileUtils.byteCountToDisplaySize(peakRss));
+        if (process.exitValue() != 0 || results != scenario.getTests()) {
+            System.out.printf("Export of [%s] exited with %s and wrote %s of %s results, see [%s]%n",
+                    scenario.getValue(), process.exitValue(), results, scenario.getTests(), log);
+            System.out.println(Files.readString(log));
+        }
+
+        final ObjectNode result = mapper.createObjectNode()
+                .put("scenario", scenario.getValue())
+                .put("bundles", scenario.getBundles())
+                .put("tests", scenario.getTests())
+                .put("exitCode", process.exitValue())
+                .put("results", results)
+                .put("wallMillis", wallMillis)
+                .put("processes", processes)
+                .put("peakRssBytes", peakRss);
+        if (Files.isRegularFile(metrics)) {
+            result.set("metrics", mapper.readTree(metrics.toFile()));
+        }
+        FileUtils.deleteQuietly(workDir.toFile());
+        return result;
+    }
+
+    private static Path installStubs(final Path bin) throws IOException {
+        Files.createDirectories(bin);
+        for (String stub : STUBS) {
+            final Path target = bin.resolve(stub);
+            try (InputStream input = MacroBenchmark.class.getResourceAsStream("/macro/" + stub)) {
+                Files.copy(Objects.requireNonNull(input, stub), target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (!target.toFile().setExecutable(true)) {
+                throw new IOException(String.format("Can not make stub [%s] executable", target));
+            }
+        }
+        return bin;
+    }
+
+    /**
+     * @return {@code VmHWM} of the process in bytes, or {@code -1} where {@code /proc} is not available
+     */
+    private static long readPeakRss(final long pid) {
+        try (Stream<String> lines = Files.lines(Paths.get("/proc", String.valueOf(pid), "status"))) {
+            return lines.filter(line -> line.startsWith("VmHWM:"))
+                    .map(line -> line.replaceAll("[^0-9]", ""))
+                    .mapToLong(kilobytes -> Long.parseLong(kilobytes) * 1024)
+                    .findFirst()
+                    .orElse(-1);
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static long countLines(final Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        try (Stream<String> lines = Files.lines(file)) {
+            return lines.count();
+        }
+    }
+
+    private static long countResults(final Path output) throws IOException {
+        if (!Files.isDirectory(output)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(output)) {
+            return files.filter(file -> file.getFileName().toString().endsWith("-result.json")).count();
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+/**
+ * Shapes of generated input for {@link MacroBenchmark}.
+ */
+public enum MacroScenario {
+
+    TESTS_1K("tests-1k", 1, 1_000, 0.1),
+    TESTS_10K("tests-10k", 1, 10_000, 0.1),
+    TESTS_50K("tests-50k", 1, 50_000, 0.1),
+    SCREENSHOTS("screenshots", 1, 1_000, 1.0),
+    MULTI_BUNDLE("multi-bundle", 4, 2_500, 0.1);
+
+    private static final int DEPTH = 2;
+    private static final int FAN_OUT = 3;
+    private static final double FAILURE_DENSITY = 0.01;
+
+    private final String value;
+    private final int bundles;
+    private final int testsPerBundle;
+    private final double attachmentDensity;
+
+    MacroScenario(final String value, final int bundles, final int testsPerBundle, final double attachmentDensity) {
+        this.value = value;
+        this.bundles = bundles;
+        this.testsPerBundle = testsPerBundle;
+        this.attachmentDensity = attachmentDensity;
+    }
+
+    public static MacroScenario fromValue(final String value) {
+        for (MacroScenario scenario : values()) {
+            if (scenario.value.equals(value)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown scenario '%s'", value));
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getBundles() {
+        return bundles;
+    }
+
+    public int getTests() {
+        return bundles * testsPerBundle;
+    }
+
+    public SummaryGenerator getGenerator(final int bundle) {
+        return new SummaryGenerator()
+                .setTests(testsPerBundle)
+                .setDepth(DEPTH)
+                .setFanOut(FAN_OUT)
+                .setFailureDensity(FAILURE_DENSITY)
+                .setAttachmentDensity(attachmentDensity)
+                .setSeed(bundle);
+    }
+
+}
@@ -0,0 +1,59 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+import io.eroshenkoam.xcresults.util.FormatUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timestamp parsing, called for every activity start and finish and every failure,
+ * against a new {@link SimpleDateFormat} per call as timestamps were parsed before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseDateBenchmark {
+
+    private static final String[] DATES = {
+        "2024-03-05T12:44:40.000+0300",
+        "2024-03-05T12:44:41.523+0300",
+        "2023-12-31T23:59:59.999-0800",
+        "2024-07-14T06:05:04.321+0000",
+    };
+
+    private int next;
+
+    @Benchmark
+    public Long parseDate() {
+        return FormatUtil.parseDate(nextDate());
+    }
+
+    @Benchmark
+    @SuppressWarnings("PMD.SimpleDateFormatNeedsLocale")
+    public Long simpleDateFormat() {
+        try {
+            return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").parse(nextDate()).getTime();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private String nextDate() {
+        next = (next + 1) % DATES.length;
+        return DATES[next];
+    }
+
+}
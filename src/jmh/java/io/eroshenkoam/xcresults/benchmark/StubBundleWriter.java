@@ -0,0 +1,133 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.START;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.SUITES;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.endArray;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.formatDate;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.getSuiteName;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.getTestIdentifier;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.getTestName;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.startArray;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.writeType;
+import static io.eroshenkoam.xcresults.benchmark.SummaryGenerator.writeValue;
+
+/**
+ * Writes the data served by the stub {@code xcrun} for a single bundle.
+ * <p>
+ * The layout is {@code summary.json} for the invocation record, {@code refs/<id>.json} for the tests
+ * and test summary references and {@code payload.bin}, which is returned for every exported payload.
+ */
+public final class StubBundleWriter {
+
+    private static final String TESTS_REF = "tests";
+    private static final String TARGET_NAME = "BenchmarkUITests";
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private StubBundleWriter() {
+    }
+
+    public static void write(final Path data, final SummaryGenerator generator, final int payloadSize)
+            throws IOException {
+        final Path refs = Files.createDirectories(data.resolve("refs"));
+        writeInvocationRecord(data.resolve("summary.json"));
+        writeTestsRef(refs.resolve(TESTS_REF + ".json"), generator.getTests());
+        generator.generate((index, summary) -> Files.write(refs.resolve(getSummaryRef(index) + ".json"), summary));
+
+        final byte[] payload = new byte[payloadSize];
+        new Random(payloadSize).nextBytes(payload);
+        Files.write(data.resolve("payload.bin"), payload);
+    }
+
+    private static void writeInvocationRecord(final Path file) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            writeType(generator, "ActionsInvocationRecord");
+            startArray(generator, "actions");
+            generator.writeStartObject();
+            writeType(generator, "ActionRecord");
+            writeValue(generator, "startedTime", "Date", formatDate(START));
+
+            generator.writeObjectFieldStart("runDestination");
+            writeType(generator, "ActionRunDestinationRecord");
+            writeValue(generator, "displayName", "String", "iPhone 15");
+            generator.writeEndObject();
+
+            generator.writeObjectFieldStart("actionResult");
+            writeType(generator, "ActionResult");
+            writeReference(generator, "testsRef", TESTS_REF);
+            generator.writeEndObject();
+
+            generator.writeEndObject();
+            endArray(generator);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeTestsRef(final Path file, final int tests) throws IOException {
+        try (JsonGenerator generator = FACTORY.createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            writeType(generator, "ActionTestPlanRunSummaries");
+            startArray(generator, "summaries");
+            generator.writeStartObject();
+            writeType(generator, "ActionTestPlanRunSummary");
+            startArray(generator, "testableSummaries");
+            generator.writeStartObject();
+            writeType(generator, "ActionTestableSummary");
+            writeValue(generator, "name", "String", TARGET_NAME);
+            writeValue(generator, "targetName", "String", TARGET_NAME);
+            startArray(generator, "tests");
+            for (int suite = 0; suite < SUITES && suite < tests; suite++) {
+                writeSuite(generator, suite, tests);
+            }
+            endArray(generator);
+            generator.writeEndObject();
+            endArray(generator);
+            generator.writeEndObject();
+            endArray(generator);
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeSuite(final JsonGenerator generator, final int suite, final int tests)
+            throws IOException {
+        generator.writeStartObject();
+        writeType(generator, "ActionTestSummaryGroup");
+        writeValue(generator, "name", "String", getSuiteName(suite));
+        writeValue(generator, "identifier", "String", getSuiteName(suite));
+        startArray(generator, "subtests");
+        for (int index = suite; index < tests; index += SUITES) {
+            generator.writeStartObject();
+            writeType(generator, "ActionTestMetadata");
+            writeValue(generator, "name", "String", getTestName(index));
+            writeValue(generator, "identifier", "String", getTestIdentifier(index));
+            writeValue(generator, "testStatus", "String", "Success");
+            writeReference(generator, "summaryRef", getSummaryRef(index));
+            generator.writeEndObject();
+        }
+        endArray(generator);
+        generator.writeEndObject();
+    }
+
+    private static void writeReference(final JsonGenerator generator, final String field, final String id)
+            throws IOException {
+        generator.writeObjectFieldStart(field);
+        writeType(generator, "Reference");
+        writeValue(generator, "id", "String", id);
+        generator.writeEndObject();
+    }
+
+    private static String getSummaryRef(final int index) {
+        return String.format("summary-%s", index);
+    }
+
+}
@@ -0,0 +1,323 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates legacy {@code ActionTestSummary} json in the {@code _type}/{@code _value} layout of xcresulttool.
+ * <p>
+ * Every test has {@code fanOut} top level activities, each of them has {@code fanOut} subactivities
+ * down to {@code depth} levels. Failures and attachments are added to activities with the given density,
+ * output is the same for the same seed.
+ */
+public class SummaryGenerator {
+
+    static final long START = 1709631880000L;
+
+    static final int SUITES = 10;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter
+            .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSxx")
+            .withZone(ZoneOffset.ofHours(3));
+
+    private static final String[] TITLES = {
+        "Tap \"Login\" Button",
+        "Type \"user@example.com\" into \"Email\" TextField",
+        "Wait for com.example.app to idle",
+        "Find the \"Settings\" Cell",
+        "Swipe up \"Feed\" ScrollView",
+        "Check for interrupting elements affecting \"Profile\" Button",
+    };
+
+    private static final String[] DIRECTIVES = {
+        "allure.id:1234",
+        "allure.label.owner: mobile-team",
+        "allure.label.feature:Authorization",
+        "allure.link.issue[jira]:https://jira.example.com/browse/APP-1",
+    };
+
+    private final JsonFactory factory = new JsonFactory();
+
+    private int tests = 100;
+    private int depth = 3;
+    private int fanOut = 4;
+    private double failureDensity = 0.01;
+    private double attachmentDensity = 0.1;
+    private long seed = 42;
+
+    public SummaryGenerator setTests(final int tests) {
+        this.tests = tests;
+        return this;
+    }
+
+    public SummaryGenerator setDepth(final int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    public SummaryGenerator setFanOut(final int fanOut) {
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    /**
+     * @param failureDensity probability of an activity to be associated with a failure
+     */
+    public SummaryGenerator setFailureDensity(final double failureDensity) {
+        this.failureDensity = failureDensity;
+        return this;
+    }
+
+    /**
+     * @param attachmentDensity probability of an activity to have an attachment
+     */
+    public SummaryGenerator setAttachmentDensity(final double attachmentDensity) {
+        this.attachmentDensity = attachmentDensity;
+        return this;
+    }
+
+    public SummaryGenerator setSeed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @return json of every test summary, the way {@code xcresulttool} returns them by summary ref
+     */
+    public List<byte[]> generate() {
+        final List<byte[]> summaries = new ArrayList<>(tests);
+        try {
+            generate((index, summary) -> summaries.add(summary));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return summaries;
+    }
+
+    /**
+     * Hands over summaries one by one, so large suites are not kept in memory.
+     */
+    public void generate(final SummaryConsumer consumer) throws IOException {
+        final Random random = new Random(seed);
+        for (int i = 0; i < tests; i++) {
+            consumer.accept(i, generateSummary(i, random));
+        }
+    }
+
+    public int getTests() {
+        return tests;
+    }
+
+    static String getTestName(final int index) {
+        return String.format("test%s()", index);
+    }
+
+    static String getTestIdentifier(final int index) {
+        return String.format("%s/%s", getSuiteName(index), getTestName(index));
+    }
+
+    static String getSuiteName(final int index) {
+        return String.format("Suite%s", index % SUITES);
+    }
+
+    private byte[] generateSummary(final int index, final Random random) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = factory.createGenerator(output, JsonEncoding.UTF8)) {
+            final TestState state = new TestState(index, random);
+            generator.writeStartObject();
+            writeType(generator, "ActionTestSummary");
+            writeValue(generator, "name", "String", getTestName(index));
+            writeValue(generator, "identifier", "String", getTestIdentifier(index));
+            writeValue(generator, "duration", "Double", "12.5");
+
+            startArray(generator, "activitySummaries");
+            writeActivity(generator, state, "Start Test at " + formatDate(state.time), null);
+            for (String directive : DIRECTIVES) {
+                writeActivity(generator, state, directive, null);
+            }
+            for (int i = 0; i < fanOut; i++) {
+                writeActivityTree(generator, state, 1);
+            }
+            endArray(generator);
+
+            startArray(generator, "failureSummaries");
+            for (int i = 0; i < state.failures; i++) {
+                writeFailure(generator, state, i);
+            }
+            endArray(generator);
+            writeValue(generator, "testStatus", "String", state.failures > 0 ? "Failure" : "Success");
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private void writeActivityTree(final JsonGenerator generator, final TestState state, final int level)
+            throws IOException {
+        final String title = TITLES[state.random.nextInt(TITLES.length)];
+        writeActivity(generator, state, title, () -> {
+            if (level < depth) {
+                startArray(generator, "subactivities");
+                for (int i = 0; i < fanOut; i++) {
+                    writeActivityTree(generator, state, level + 1);
+                }
+                endArray(generator);
+            }
+        });
+    }
+
+    private void writeActivity(final JsonGenerator generator,
+                               final TestState state,
+                               final String title,
+                               final Content subactivities) throws IOException {
+        generator.writeStartObject();
+        writeType(generator, "ActionTestActivitySummary");
+        writeValue(generator, "title", "String", title);
+        writeValue(generator, "activityType", "String", "com.apple.dt.xctest.activity-type.userCreated");
+        writeValue(generator, "uuid", "String", String.format("%s-%s", state.index, state.activities++));
+        writeValue(generator, "start", "Date", formatDate(state.time));
+        state.time += 10;
+        if (state.random.nextDouble() < attachmentDensity) {
+            startArray(generator, "attachments");
+            writeAttachment(generator, state);
+            endArray(generator);
+        }
+        if (state.random.nextDouble() < failureDensity) {
+            startArray(generator, "failureSummaryIDs");
+            generator.writeStartObject();
+            writeType(generator, "String");
+            generator.writeStringField("_value", getFailureId(state, state.failures++));
+            generator.writeEndObject();
+            endArray(generator);
+        }
+        if (subactivities != null) {
+            subactivities.write();
+        }
+        writeValue(generator, "finish", "Date", formatDate(state.time));
+        generator.writeEndObject();
+    }
+
+    private void writeAttachment(final JsonGenerator generator, final TestState state) throws IOException {
+        final int attachment = state.attachments++;
+        final String filename = attachment % 2 == 0
+                ? String.format("Screenshot_%s.heic", attachment)
+                : String.format("log_%s.txt", attachment);
+        generator.writeStartObject();
+        writeType(generator, "ActionTestAttachment");
+        writeValue(generator, "filename", "String", filename);
+        writeValue(generator, "name", "String", filename);
+        writeValue(generator, "uniformTypeIdentifier", "String", "public.data");
+        writeValue(generator, "uuid", "String", String.format("attachment-%s-%s", state.index, attachment));
+        generator.writeObjectFieldStart("payloadRef");
+        writeType(generator, "Reference");
+        writeValue(generator, "id", "String", String.format("payload-%s-%s", state.index, attachment));
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private void writeFailure(final JsonGenerator generator, final TestState state, final int failure)
+            throws IOException {
+        generator.writeStartObject();
+        writeType(generator, "ActionTestFailureSummary");
+        writeValue(generator, "message", "String", "XCTAssertTrue failed - element is not hittable");
+        writeValue(generator, "uuid", "String", getFailureId(state, failure));
+        writeValue(generator, "timestamp", "Date", formatDate(state.time));
+        writeValue(generator, "isTopLevelFailure", "Bool", "false");
+
+        generator.writeObjectFieldStart("sourceCodeContext");
+        writeType(generator, "SourceCodeContext");
+        startArray(generator, "callStack");
+        for (int i = 0; i < 3; i++) {
+            generator.writeStartObject();
+            writeType(generator, "SourceCodeFrame");
+            generator.writeObjectFieldStart("symbolInfo");
+            writeType(generator, "SourceCodeSymbolInfo");
+            generator.writeObjectFieldStart("location");
+            writeType(generator, "SourceCodeLocation");
+            writeValue(generator, "filePath", "String", "/Users/ci/project/UITests/LoginTests.swift");
+            writeValue(generator, "lineNumber", "Int", String.valueOf(40 + i));
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        endArray(generator);
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private static String getFailureId(final TestState state, final int failure) {
+        return String.format("failure-%s-%s", state.index, failure);
+    }
+
+    static String formatDate(final long millis) {
+        return DATE_FORMAT.format(Instant.ofEpochMilli(millis));
+    }
+
+    static void writeType(final JsonGenerator generator, final String name) throws IOException {
+        generator.writeObjectFieldStart("_type");
+        generator.writeStringField("_name", name);
+        generator.writeEndObject();
+    }
+
+    static void writeValue(final JsonGenerator generator,
+                                   final String field,
+                                   final String type,
+                                   final String value) throws IOException {
+        generator.writeObjectFieldStart(field);
+        writeType(generator, type);
+        generator.writeStringField("_value", value);
+        generator.writeEndObject();
+    }
+
+    static void startArray(final JsonGenerator generator, final String field) throws IOException {
+        generator.writeObjectFieldStart(field);
+        writeType(generator, "Array");
+        generator.writeArrayFieldStart("_values");
+    }
+
+    static void endArray(final JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    @FunctionalInterface
+    public interface SummaryConsumer {
+        void accept(int index, byte[] summary) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Content {
+        void write() throws IOException;
+    }
+
+    private static final class TestState {
+
+        private final int index;
+        private final Random random;
+
+        private long time;
+        private int activities;
+        private int attachments;
+        private int failures;
+
+        private TestState(final int index, final Random random) {
+            this.index = index;
+            this.random = random;
+            this.time = START + index * 60_000L;
+        }
+
+    }
+
+}
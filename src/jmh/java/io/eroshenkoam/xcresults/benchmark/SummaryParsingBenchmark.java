@@ -0,0 +1,73 @@
+package io.eroshenkoam.xcresults.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eroshenkoam.xcresults.model.ActionTestSummary;
+import io.eroshenkoam.xcresults.model.XcResultReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming summary reader against materializing the whole {@code _type}/{@code _value} tree,
+ * the way summaries were read with {@code readTree} before.
+ * <p>
+ * Depth 5 with fan-out 6 produces a summary of about 5 MB, depth 7 of about 170 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SummaryParsingBenchmark {
+
+    @Param({"5", "7"})
+    private int depth;
+
+    @Param("6")
+    private int fanOut;
+
+    private final JsonFactory factory = new JsonFactory();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private byte[] summary;
+
+    @Setup
+    public void setUp() {
+        summary = new SummaryGenerator()
+                .setTests(1)
+                .setDepth(depth)
+                .setFanOut(fanOut)
+                .generate()
+                .get(0);
+    }
+
+    @Benchmark
+    public ActionTestSummary streaming() throws IOException {
+        try (JsonParser parser = factory.createParser(summary)) {
+            parser.nextToken();
+            return XcResultReader.readTestSummary(parser);
+        }
+    }
+
+    @Benchmark
+    public JsonNode readTree() throws IOException {
+        return mapper.readTree(summary);
+    }
+
+}
@@ -0,0 +1,66 @@
+package io.eroshenkoam.xcresults.bundle;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reader for the on-disk layout of an {@code *.xcresult} bundle.
+ * <p>
+ * A bundle consists of {@code Info.plist} and the {@code Data} directory with content-addressed
+ * objects: {@code data.<id>} for raw payloads and {@code refs.<id>} for the object graph.
+ * Objects are usually zstd-compressed. Only payloads are read, the encoding of the object graph
+ * is not publicly documented.
+ */
+public class XcResultBundle {
+
+    private static final String INFO_PLIST = "Info.plist";
+    private static final String DATA = "Data";
+
+    private static final String DATA_PREFIX = "data.";
+
+    private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD};
+
+    private final Path path;
+
+    public XcResultBundle(final Path path) {
+        this.path = path;
+    }
+
+    public static boolean isBundle(final Path path) {
+        return Files.isRegularFile(path.resolve(INFO_PLIST)) && Files.isDirectory(path.resolve(DATA));
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public boolean hasData(final String id) {
+        return Files.isRegularFile(getDataPath(id));
+    }
+
+    public InputStream openData(final String id) throws IOException {
+        return openObject(getDataPath(id));
+    }
+
+    private Path getDataPath(final String id) {
+        return path.resolve(DATA).resolve(DATA_PREFIX + id);
+    }
+
+    private static InputStream openObject(final Path objectPath) throws IOException {
+        final InputStream input = new BufferedInputStream(Files.newInputStream(objectPath));
+        input.mark(ZSTD_MAGIC.length);
+        final byte[] header = input.readNBytes(ZSTD_MAGIC.length);
+        input.reset();
+        if (Arrays.equals(header, ZSTD_MAGIC)) {
+            return new ZstdInputStream(input);
+        }
+        return input;
+    }
+
+}
@@ -5,19 +5,37 @@ import java.io.Serializable;
 public class CarouselImage implements Serializable {
 
     private final String name;
-    private final String base64;
+    private final String src;
+    private final String thumbnail;
 
-    public CarouselImage(final String name, final String base64) {
+    public CarouselImage(final String name, final String src) {
+        this(name, src, src);
+    }
+
+    public CarouselImage(final String name, final String src, final String thumbnail) {
         this.name = name;
-        this.base64 = base64;
+        this.src = src;
+        this.thumbnail = thumbnail;
     }
 
     public String getName() {
         return name;
     }
 
+    public String getSrc() {
+        return src;
+    }
+
+    public String getThumbnail() {
+        return thumbnail;
+    }
+
+    /**
+     * @deprecated use {@link #getSrc()}, kept for custom carousel templates
+     */
+    @Deprecated
     public String getBase64() {
-        return base64;
+        return src;
     }
 
 }
@@ -0,0 +1,15 @@
+package io.eroshenkoam.xcresults.carousel;
+
+public enum CarouselMode {
+
+    /**
+     * Images are embedded into the carousel as base64 data urls.
+     */
+    inline,
+
+    /**
+     * Images are referenced by the exported attachment file names and loaded lazily.
+     */
+    link
+
+}
@@ -1,16 +1,15 @@
 package io.eroshenkoam.xcresults.carousel;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import io.eroshenkoam.xcresults.export.ExportPostProcessor;
-import io.eroshenkoam.xcresults.util.FreemarkerUtil;
+import io.eroshenkoam.xcresults.util.ExportMetrics;
+import io.eroshenkoam.xcresults.util.TemplateRenderer;
 import io.qameta.allure.model.Attachment;
 import io.qameta.allure.model.ExecutableItem;
 import io.qameta.allure.model.TestResult;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -19,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -26,28 +26,45 @@ import static io.eroshenkoam.xcresults.util.FormatUtil.getAttachmentFileName;
 
 public class CarouselPostProcessor implements ExportPostProcessor {
 
-    private final ObjectMapper mapper = new ObjectMapper()
-            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    private static final String DEFAULT_TEMPLATE = "templates/carousel.ftl";
 
+    private final TemplateRenderer renderer;
     private final String templatePath;
+    private final CarouselMode mode;
+    private final ThumbnailGenerator thumbnails;
 
     public CarouselPostProcessor(final String templatePath) {
-        this.templatePath = templatePath;
+        this(TemplateRenderer.getDefault(), templatePath, CarouselMode.inline, null);
     }
 
-    @Override
-    public void processTestResults(final Path outputPath, final Map<Path, TestResult> testResults) {
-        System.out.println("Carousel attachment feature enabled");
+    public CarouselPostProcessor(final TemplateRenderer renderer,
+                                 final String templatePath,
+                                 final CarouselMode mode,
+                                 final ThumbnailGenerator thumbnails) {
+        this.renderer = renderer;
+        this.templatePath = templatePath;
+        this.mode = mode;
+        this.thumbnails = thumbnails;
+        System.out.printf("Carousel attachment feature enabled (%s images%s)%n",
+                mode, Objects.nonNull(thumbnails) ? " with thumbnails" : "");
         Optional.ofNullable(templatePath)
                 .map(t -> String.format("Carousel template: %s", t))
                 .ifPresent(System.out::println);
-        testResults.forEach((path, result) -> processTestResult(outputPath, path, result));
     }
 
-    private void processTestResult(final Path outputPath, final Path path, final TestResult testResult) {
+    @Override
+    public void processTestResult(final Path outputPath, final TestResult testResult) {
+        final long start = System.nanoTime();
+        addCarousel(outputPath, testResult);
+        ExportMetrics.getDefault().record(ExportMetrics.PHASE_CAROUSEL, start);
+    }
+
+    private void addCarousel(final Path outputPath, final TestResult testResult) {
         final List<Attachment> attachments = getAttachment(testResult, (a) -> a.getName().endsWith(".jpeg"));
         final List<CarouselImage> carouselImages = attachments.stream()
                 .map(a -> convert(outputPath, a))
+                .collect(Collectors.toList()).stream()
+                .map(CompletableFuture::join)
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .collect(Collectors.toList());
@@ -57,15 +74,15 @@ public class CarouselPostProcessor implements ExportPostProcessor {
         try {
             final Carousel carousel = new Carousel(carouselImages);
             final Map<String, Object> data = Map.of("carousel", carousel);
-            final String carouselContent = Objects.nonNull(templatePath)
-                    ? FreemarkerUtil.render(Path.of(templatePath), data)
-                    : FreemarkerUtil.render("templates/carousel.ftl", data);
+            final Template template = Objects.nonNull(templatePath)
+                    ? renderer.getTemplate(Path.of(templatePath))
+                    : renderer.getTemplate(DEFAULT_TEMPLATE);
             final Path carouselPath = outputPath.resolve(getAttachmentFileName("html"));
-            Files.write(carouselPath, carouselContent.getBytes(StandardCharsets.UTF_8));
+            renderer.render(template, data, carouselPath);
+            ExportMetrics.getDefault().recordWritten(ExportMetrics.BYTES_CAROUSEL, carouselPath);
             testResult.getAttachments().add(new Attachment()
                     .setName("Carousel")
                     .setSource(carouselPath.getFileName().toString()));
-            mapper.writeValue(path.toFile(), testResult);
         } catch (IOException | TemplateException e) {
             System.out.println("Can not create carousel attachment: " + e.getMessage());
         }
@@ -82,15 +99,38 @@ public class CarouselPostProcessor implements ExportPostProcessor {
         return attachments;
     }
 
-    private Optional<CarouselImage> convert(final Path outputPath, final Attachment attachment) {
+    /**
+     * Thumbnails of all images of a test are generated at once, the export thread only waits for them.
+     */
+    private CompletableFuture<Optional<CarouselImage>> convert(final Path outputPath, final Attachment attachment) {
+        final Path image = outputPath.resolve(attachment.getSource());
+        if (!Files.isRegularFile(image)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        final String src;
         try {
-            final byte[] bytes = Files.readAllBytes(outputPath.resolve(attachment.getSource()));
-            final String content = "data:image/jpeg;base64, " + Base64.getEncoder().encodeToString(bytes);
-            return Optional.of(new CarouselImage(attachment.getName(), content));
+            src = CarouselMode.link.equals(mode)
+                    ? attachment.getSource()
+                    : toDataUrl(Files.readAllBytes(image));
         } catch (IOException e) {
-            return Optional.empty();
+            return CompletableFuture.completedFuture(Optional.empty());
         }
+        return getThumbnail(image).thenApply(thumbnail ->
+                Optional.of(new CarouselImage(attachment.getName(), src, thumbnail.orElse(src)))
+        );
+    }
+
+    private CompletableFuture<Optional<String>> getThumbnail(final Path image) {
+        if (Objects.isNull(thumbnails)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return thumbnails.generate(image)
+                .thenApply(bytes -> Optional.of(toDataUrl(bytes)))
+                .exceptionally(e -> Optional.empty());
+    }
 
+    private static String toDataUrl(final byte[] bytes) {
+        return "data:image/jpeg;base64, " + Base64.getEncoder().encodeToString(bytes);
     }
 
 }
@@ -0,0 +1,62 @@
+package io.eroshenkoam.xcresults.carousel;
+
+import io.eroshenkoam.xcresults.util.ProcessRunner;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Generates thumbnails with {@code sips}, the larger side of the image is resampled to the given size.
+ * <p>
+ * Runs go through {@link ProcessRunner}, which bounds the number of concurrent processes.
+ */
+public class SipsThumbnailGenerator implements ThumbnailGenerator {
+
+    private static final String DEFAULT_COMMAND = "sips";
+
+    private final String command;
+    private final int size;
+
+    public SipsThumbnailGenerator(final int size) {
+        this(DEFAULT_COMMAND, size);
+    }
+
+    public SipsThumbnailGenerator(final String command, final int size) {
+        this.command = command;
+        this.size = size;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> generate(final Path image) {
+        final Path staging;
+        try {
+            staging = Files.createTempDirectory("thumbnail");
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        final Path thumbnail = staging.resolve(image.getFileName());
+        final ProcessBuilder builder = new ProcessBuilder(
+                command, "-Z", String.valueOf(size),
+                image.toAbsolutePath().toString(),
+                "--out", thumbnail.toAbsolutePath().toString()
+        );
+        return ProcessRunner.getDefault()
+                .run(builder, input -> IOUtils.copy(input, NullOutputStream.NULL_OUTPUT_STREAM))
+                .thenApply(ignored -> readThumbnail(thumbnail))
+                .whenComplete((bytes, e) -> FileUtils.deleteQuietly(staging.toFile()));
+    }
+
+    private static byte[] readThumbnail(final Path thumbnail) {
+        try {
+            return Files.readAllBytes(thumbnail);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -0,0 +1,14 @@
+package io.eroshenkoam.xcresults.carousel;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+@FunctionalInterface
+public interface ThumbnailGenerator {
+
+    /**
+     * @return JPEG content of the thumbnail, generated without blocking the calling thread
+     */
+    CompletableFuture<byte[]> generate(Path image);
+
+}
@@ -1,10 +1,13 @@
 package io.eroshenkoam.xcresults.export;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import io.eroshenkoam.xcresults.model.ActionTestActivitySummary;
+import io.eroshenkoam.xcresults.model.ActionTestAttachment;
+import io.eroshenkoam.xcresults.model.ActionTestFailureSummary;
+import io.eroshenkoam.xcresults.model.ActionTestStatus;
+import io.eroshenkoam.xcresults.model.ActionTestSummary;
 import io.qameta.allure.model.Attachment;
 import io.qameta.allure.model.ExecutableItem;
 import io.qameta.allure.model.Label;
-import io.qameta.allure.model.Link;
 import io.qameta.allure.model.Status;
 import io.qameta.allure.model.StatusDetails;
 import io.qameta.allure.model.StepResult;
@@ -12,96 +15,80 @@ import io.qameta.allure.model.TestResult;
 import org.apache.commons.io.FilenameUtils;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.UUID;
 
 import static io.eroshenkoam.xcresults.export.ExportProcessor.FILE_EXTENSION_HEIC;
 import static io.eroshenkoam.xcresults.util.FormatUtil.getAttachmentFileName;
-import static io.eroshenkoam.xcresults.util.FormatUtil.parseDate;
 import static java.util.Objects.isNull;
 
-public class Allure2ExportFormatter implements ExportFormatter {
+public class Allure2ExportFormatter implements ExportFormatter<ActionTestSummary> {
 
-    private static final String IDENTIFIER = "identifier";
-    private static final String DURATION = "duration";
-    private static final String STATUS = "testStatus";
-    private static final String FAILURE_SUMMARIES = "failureSummaries";
-
-    private static final String FAILURE_IS_TOP_LEVEL = "isTopLevelFailure";
-
-    private static final String ACTIVITY_SUMMARIES = "activitySummaries";
-    private static final String ACTIVITY_TYPE = "activityType";
-    private static final String ACTIVITY_UUID = "uuid";
-    private static final String ACTIVITY_TITLE = "title";
-    private static final String ACTIVITY_START = "start";
-    private static final String ACTIVITY_FINISH = "finish";
-    private static final String ACTIVITY_FAILURE_SUMMARY_IDS = "failureSummaryIDs";
-
-    private static final String FAILURE_MESSAGE = "message";
-    private static final String FAILURE_TIMESTAMP = "timestamp";
-
-    private static final String SOURCE_CODE_CONTEXT = "sourceCodeContext";
-    private static final String SYMBOL_INFO = "symbolInfo";
-    private static final String CALL_STACK = "callStack";
-    private static final String LOCATION = "location";
-    private static final String FILE_PATH = "filePath";
-    private static final String LINE_NUMBER = "lineNumber";
+    private static final String SUITE = "suite";
 
-    private static final String SUBACTIVITIES = "subactivities";
+    private final AllureDirectives directives;
 
-    private static final String ATTACHMENTS = "attachments";
+    /**
+     * Attachment sources are derived from payload refs, so the same payload is stored once.
+     * The key is unique per formatter because refs are only unique within a bundle
+     * and bundles may share the output directory.
+     */
+    private final String attachmentKey = UUID.randomUUID().toString();
 
-    private static final String NAME = "name";
-    private static final String FILENAME = "filename";
-    private static final String VALUE = "_value";
-    private static final String VALUES = "_values";
+    public Allure2ExportFormatter() {
+        this(AllureDirectives.defaults());
+    }
 
-    private static final String SUITE = "suite";
+    public Allure2ExportFormatter(final AllureDirectives directives) {
+        this.directives = directives;
+    }
 
     @Override
-    public TestResult format(final ExportMeta meta, final JsonNode node) {
+    public TestResult format(final ExportMeta meta, final ActionTestSummary node) {
+        return format(meta, node, new HashMap<>());
+    }
+
+    /**
+     * @param attachmentNodes collects attachments with a payload by the produced attachment source
+     */
+    public TestResult format(final ExportMeta meta,
+                             final ActionTestSummary node,
+                             final Map<String, ActionTestAttachment> attachmentNodes) {
         final TestResult result = new TestResult()
                 .setParameters(new ArrayList<>())
                 .setLabels(new ArrayList<>())
                 .setSteps(new ArrayList<>())
                 .setAttachments(new ArrayList<>());
-        if (node.has(NAME)) {
-            result.setName(node.get(NAME).get(VALUE).asText());
+        if (Objects.nonNull(node.getName())) {
+            result.setName(node.getName());
         }
-        if (node.has(IDENTIFIER)) {
-            final String identifier = node.get(IDENTIFIER).get(VALUE).asText();
+        if (Objects.nonNull(node.getIdentifier())) {
+            final String identifier = node.getIdentifier();
             result.setHistoryId(getHistoryId(meta, identifier));
             result.setFullName(identifier);
         }
-        if (node.has(STATUS)) {
-            result.setStatus(getTestStatus(node));
+        if (Objects.nonNull(node.getTestStatus())) {
+            result.setStatus(getTestStatus(node.getTestStatus()));
         }
         final StepContext context = new StepContext()
                 .setResult(result)
-                .setCurrent(result)
-                .setPath(Collections.singletonList(result));
+                .setCurrent(result);
         context.setFailures(new HashMap<>());
-        if (node.has(FAILURE_SUMMARIES)) {
-            node.get(FAILURE_SUMMARIES).get(VALUES).forEach(failure -> {
-                final String key = failure.get(ACTIVITY_UUID).get(VALUE).asText();
-                context.getFailures().put(key, failure);
-            });
-        }
-        if (node.has(ACTIVITY_SUMMARIES)) {
-            final Iterable<JsonNode> activities = node.get(ACTIVITY_SUMMARIES).get(VALUES);
-            for (JsonNode activity : activities) {
-                parseStep(activity, context);
-            }
+        context.setAttachmentNodes(attachmentNodes);
+        node.getFailureSummaries().forEach(failure -> {
+            context.getFailures().put(failure.getUuid(), failure);
+        });
+        for (ActionTestActivitySummary activity : node.getActivitySummaries()) {
+            parseStep(activity, context);
         }
+        context.complete();
         final Optional<StepResult> topLevelFailure = context.getFailures().values().stream()
-                .filter(this::isTopLevelFailure)
-                .map(this::getFailureStep)
+                .filter(ActionTestFailureSummary::isTopLevelFailure)
+                .map(failure -> getFailureStep(failure, context))
                 .findFirst();
         if (topLevelFailure.isPresent()) {
             final StepResult failStep = topLevelFailure.get();
@@ -117,8 +104,8 @@ public class Allure2ExportFormatter implements ExportFormatter {
             result.setStart(meta.getStart());
         }
         if (Objects.nonNull(result.getStart())) {
-            if (node.has(DURATION)) {
-                final Double durationText = node.get(DURATION).get(VALUE).asDouble();
+            if (Objects.nonNull(node.getDuration())) {
+                final Double durationText = node.getDuration();
                 long durationToMillis = (long) (durationText * 1000);
                 result.setStop(result.getStart() + durationToMillis);
             }
@@ -131,7 +118,7 @@ public class Allure2ExportFormatter implements ExportFormatter {
     }
 
     @SuppressWarnings("PMD.NcssCount")
-    private void parseStep(final JsonNode activity,
+    private void parseStep(final ActionTestActivitySummary activity,
                            final StepContext context) {
         final Optional<String> title = getActivityTitle(activity);
         if (!title.isPresent()) {
@@ -139,52 +126,15 @@ public class Allure2ExportFormatter implements ExportFormatter {
         }
         final String activityTitle = title.get();
 
-        final Matcher idMatcher = Pattern.compile("allure\\.id:(?<id>.*)")
-                .matcher(activityTitle);
-        if (idMatcher.matches()) {
-            final Label label = new Label()
-                    .setName("AS_ID")
-                    .setValue(idMatcher.group("id"));
-            context.getResult().getLabels().add(label);
-            return;
-        }
-        final Matcher nameMatcher = Pattern.compile("allure\\.name:(?<name>.*)")
-                .matcher(activityTitle);
-        if (nameMatcher.matches()) {
-            context.getResult().setName(nameMatcher.group("name"));
-            return;
-        }
-        final Matcher descriptionMatcher = Pattern.compile("allure\\.description:(?<description>.*)")
-                .matcher(activityTitle);
-        if (descriptionMatcher.matches()) {
-            context.getResult().setDescription(descriptionMatcher.group("description"));
-            return;
-        }
-        final Matcher labelMatcher = Pattern.compile("allure\\.label\\.(?<name>.*?):(?<value>.*)")
-                .matcher(activityTitle);
-        if (labelMatcher.matches()) {
-            final Label label = new Label()
-                    .setName(labelMatcher.group("name"))
-                    .setValue(labelMatcher.group("value").trim());
-            context.getResult().getLabels().add(label);
-            return;
-        }
-        final Matcher linkMatcher = Pattern.compile("allure\\.link\\.(?<name>.*?)(|\\[(?<type>.*)]):(?<url>.*)")
-                .matcher(activityTitle);
-        if (linkMatcher.matches()) {
-            final Link link = new Link()
-                    .setName(linkMatcher.group("name"))
-                    .setType(linkMatcher.group("type"))
-                    .setUrl(linkMatcher.group("url").trim());
-            context.getResult().getLinks().add(link);
+        if (directives.apply(activityTitle, context.getResult())) {
             return;
         }
 
-        final Optional<List<Attachment>> attachments = Optional.ofNullable(activity.get(ATTACHMENTS))
-                .map(a -> a.get(VALUES))
-                .map(this::getAttachments);
-        if (activityTitle.startsWith("Start Test at") && activity.has(ACTIVITY_START)) {
-            context.getResult().setStart(parseDate(activity.get(ACTIVITY_START).get(VALUE).asText()));
+        final Optional<List<Attachment>> attachments = Optional.of(activity.getAttachments())
+                .filter(a -> !a.isEmpty())
+                .map(nodes -> getAttachments(nodes, context));
+        if (activityTitle.startsWith("Start Test at") && Objects.nonNull(activity.getStart())) {
+            context.getResult().setStart(activity.getStart());
             attachments.ifPresent(context.getCurrent().getAttachments()::addAll);
             return;
         }
@@ -195,11 +145,12 @@ public class Allure2ExportFormatter implements ExportFormatter {
                 .setSteps(new ArrayList<>())
                 .setAttachments(new ArrayList<>());
         attachments.ifPresent(step.getAttachments()::addAll);
+        final StepContext stepContext = context.child(step);
 
         final boolean hasAssertionMessage = activityTitle.startsWith("Assertion Failure")
                 || activityTitle.contains("Test skipped");
-        final boolean hasAssertionType = activity.has(ACTIVITY_TYPE)
-                && activity.get(ACTIVITY_TYPE).get(VALUE).asText().contains("testAssertionFailure");
+        final boolean hasAssertionType = Objects.nonNull(activity.getActivityType())
+                && activity.getActivityType().contains("testAssertionFailure");
         if (hasAssertionMessage || hasAssertionType) {
             final Status status = context.getResult().getStatus();
             final StatusDetails details = new StatusDetails();
@@ -210,47 +161,37 @@ public class Allure2ExportFormatter implements ExportFormatter {
                 details.setMessage(activityTitle);
             }
 
-            step.setStatusDetails(details);
-            step.setStatus(status);
-
-            context.getPath().forEach(item -> {
-                item.setStatusDetails(details);
-                item.setStatus(status);
-            });
+            stepContext.report(status, details);
         }
-        if (activity.has(ACTIVITY_START) && activity.has(ACTIVITY_FINISH)) {
-            step.setStart(parseDate(activity.get(ACTIVITY_START).get(VALUE).asText()));
-            step.setStop(parseDate(activity.get(ACTIVITY_FINISH).get(VALUE).asText()));
+        if (Objects.nonNull(activity.getStart()) && Objects.nonNull(activity.getFinish())) {
+            step.setStart(activity.getStart());
+            step.setStop(activity.getFinish());
         }
-        if (activity.has(SUBACTIVITIES)) {
-            for (JsonNode subActivity : activity.get(SUBACTIVITIES).get(VALUES)) {
-                parseStep(subActivity, context.child(step));
-            }
+        for (ActionTestActivitySummary subActivity : activity.getSubactivities()) {
+            parseStep(subActivity, stepContext);
         }
-        if (activity.has(ACTIVITY_FAILURE_SUMMARY_IDS)) {
-            final Iterable<JsonNode> activityFailures = activity.get(ACTIVITY_FAILURE_SUMMARY_IDS).get(VALUES);
-            for (JsonNode activityFailureUuid : activityFailures) {
-                final String uuid = activityFailureUuid.get(VALUE).asText();
-                final StepResult failureStep = getFailureStep(context.getFailures().get(uuid));
-                step.getSteps().add(failureStep);
-                step.setStatus(failureStep.getStatus());
-                step.setStatusDetails(failureStep.getStatusDetails());
-                context.getPath().forEach(item -> {
-                    item.setStatusDetails(failureStep.getStatusDetails());
-                    item.setStatus(failureStep.getStatus());
-                });
-            }
+        for (String uuid : activity.getFailureSummaryIDs()) {
+            final StepResult failureStep = getFailureStep(context.getFailures().get(uuid), context);
+            step.getSteps().add(failureStep);
+            stepContext.report(failureStep.getStatus(), failureStep.getStatusDetails());
         }
+        stepContext.complete();
         context.getCurrent().getSteps().add(step);
     }
 
     @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-    private List<Attachment> getAttachments(final Iterable<JsonNode> nodes) {
+    private List<Attachment> getAttachments(final List<ActionTestAttachment> nodes, final StepContext context) {
         final List<Attachment> attachments = new ArrayList<>();
-        for (JsonNode node : nodes) {
-            final String originalFileName = node.get(FILENAME).get(VALUE).asText();
+        for (ActionTestAttachment node : nodes) {
+            final String originalFileName = node.getFilename();
             final String fileExtension = FilenameUtils.getExtension(originalFileName);
-            final String sources = getAttachmentFileName(fileExtension);
+            final String sources;
+            if (Objects.nonNull(node.getPayloadRefId())) {
+                sources = getAttachmentFileName(attachmentKey + node.getPayloadRefId(), fileExtension);
+                context.getAttachmentNodes().put(sources, node);
+            } else {
+                sources = getAttachmentFileName(fileExtension);
+            }
             final String fileName = FILE_EXTENSION_HEIC.equals(fileExtension)
                     ? String.format("%s.%s", FilenameUtils.getBaseName(originalFileName), "jpeg")
                     : originalFileName;
@@ -275,45 +216,33 @@ public class Allure2ExportFormatter implements ExportFormatter {
         return position;
     }
 
-    private Status getTestStatus(final JsonNode node) {
-        final String status = node.get(STATUS).get(VALUE).asText();
-        if (isNull(status)) {
-            return null;
-        }
-
+    private Status getTestStatus(final ActionTestStatus status) {
         switch (status) {
-            case "Success":
-            case "Expected Failure":
+            case SUCCESS:
+            case EXPECTED_FAILURE:
                 return Status.PASSED;
-            case "Failure":
+            case FAILURE:
                 return Status.FAILED;
-            case "Skipped":
+            case SKIPPED:
                 return Status.SKIPPED;
             default:
                 return null;
         }
     }
 
-    private Optional<String> getActivityTitle(final JsonNode node) {
-        if (node.has(ACTIVITY_TITLE)) {
-            return Optional.of(node.get(ACTIVITY_TITLE).get(VALUE).asText());
+    private Optional<String> getActivityTitle(final ActionTestActivitySummary node) {
+        if (Objects.nonNull(node.getTitle())) {
+            return Optional.of(node.getTitle());
         }
-        if (node.has(ACTIVITY_TYPE)) {
-            return Optional.of(node.get(ACTIVITY_TYPE).get(VALUE).asText());
+        if (Objects.nonNull(node.getActivityType())) {
+            return Optional.of(node.getActivityType());
         }
         return Optional.empty();
     }
 
-    private Boolean isTopLevelFailure(final JsonNode activityFailure) {
-        if (activityFailure.has(FAILURE_IS_TOP_LEVEL)) {
-            return activityFailure.get(FAILURE_IS_TOP_LEVEL).get(VALUE).asBoolean();
-        }
-        return false;
-    }
-
-    private StepResult getFailureStep(final JsonNode activityFailure) {
-        final Long timestamp = parseDate(activityFailure.get(FAILURE_TIMESTAMP).get(VALUE).asText());
-        final String message = activityFailure.get(FAILURE_MESSAGE).get(VALUE).asText();
+    private StepResult getFailureStep(final ActionTestFailureSummary activityFailure, final StepContext context) {
+        final Long timestamp = activityFailure.getTimestamp();
+        final String message = activityFailure.getMessage();
         final String trace = getStackTrace(activityFailure);
         final Status failedStatus = Status.FAILED;
         final StatusDetails failedDetails = new StatusDetails()
@@ -325,44 +254,35 @@ public class Allure2ExportFormatter implements ExportFormatter {
                 .setStart(timestamp)
                 .setStop(timestamp);
         failureStep.setStatusDetails(failedDetails);
-        if (activityFailure.has(ATTACHMENTS)) {
-            failureStep.getAttachments().addAll(getAttachments(activityFailure.get(ATTACHMENTS).get(VALUES)));
-        }
+        failureStep.getAttachments().addAll(getAttachments(activityFailure.getAttachments(), context));
         return failureStep;
     }
 
-    private String getStackTrace(final JsonNode activityFailure) {
-        if (activityFailure.has(SOURCE_CODE_CONTEXT)) {
-            final JsonNode context = activityFailure.get(SOURCE_CODE_CONTEXT);
-            if (context.has(CALL_STACK)) {
-                final List<String> lines = new ArrayList<>();
-                for (JsonNode line : context.findValue(CALL_STACK).get(VALUES)) {
-                    Optional.ofNullable(line.get(SYMBOL_INFO))
-                            .map(v -> v.findValue(LOCATION))
-                            .flatMap(this::getFileLineNumber)
-                            .ifPresent(lines::add);
-                }
-                return String.join("\n", lines);
-            }
+    private String getStackTrace(final ActionTestFailureSummary activityFailure) {
+        if (Objects.nonNull(activityFailure.getCallStack())) {
+            return String.join("\n", activityFailure.getCallStack());
         }
         return null;
     }
 
-    private Optional<String> getFileLineNumber(final JsonNode location) {
-        if (location.has(FILE_PATH) && location.has(LINE_NUMBER)) {
-            final String filePath = location.get(FILE_PATH).get(VALUE).asText();
-            final String lineNumber = location.get(LINE_NUMBER).get(VALUE).asText();
-            return Optional.of(String.format("%s:%s", filePath, lineNumber));
-        }
-        return Optional.empty();
-    }
-
+    /**
+     * Steps are linked to their parent context, statuses are resolved once per step in post-order.
+     * <p>
+     * The latest failure or assertion wins: a step gets the status of the last one reported in its subtree
+     * and hands it over to its parent when completed. The test result is updated right away, because
+     * assertions take their status from the current test status.
+     */
     private class StepContext {
 
         private TestResult result;
         private ExecutableItem current;
-        private List<ExecutableItem> path;
-        private Map<String, JsonNode> failures;
+        private StepContext parent;
+        private Map<String, ActionTestFailureSummary> failures;
+        private Map<String, ActionTestAttachment> attachmentNodes;
+
+        private boolean reported;
+        private Status status;
+        private StatusDetails statusDetails;
 
         public TestResult getResult() {
             return result;
@@ -382,33 +302,66 @@ public class Allure2ExportFormatter implements ExportFormatter {
             return this;
         }
 
-        public List<ExecutableItem> getPath() {
-            return path;
+        public StepContext getParent() {
+            return parent;
         }
 
-        public StepContext setPath(List<ExecutableItem> path) {
-            this.path = path;
+        public StepContext setParent(final StepContext parent) {
+            this.parent = parent;
             return this;
         }
 
-        public Map<String, JsonNode> getFailures() {
+        public Map<String, ActionTestFailureSummary> getFailures() {
             return this.failures;
         }
 
-        public StepContext setFailures(final Map<String, JsonNode> failures) {
+        public StepContext setFailures(final Map<String, ActionTestFailureSummary> failures) {
             this.failures = failures;
             return this;
         }
 
+        public Map<String, ActionTestAttachment> getAttachmentNodes() {
+            return attachmentNodes;
+        }
+
+        public StepContext setAttachmentNodes(final Map<String, ActionTestAttachment> attachmentNodes) {
+            this.attachmentNodes = attachmentNodes;
+            return this;
+        }
+
         public StepContext child(final ExecutableItem next) {
-            final List<ExecutableItem> nextPath = new ArrayList<>(path);
-            nextPath.add(next);
             return new StepContext()
                     .setResult(result)
                     .setCurrent(next)
-                    .setPath(nextPath)
-                    .setFailures(this.getFailures());
+                    .setParent(this)
+                    .setFailures(this.getFailures())
+                    .setAttachmentNodes(this.getAttachmentNodes());
+        }
+
+        public void report(final Status status, final StatusDetails details) {
+            update(status, details);
+            result.setStatus(status);
+            result.setStatusDetails(details);
+        }
+
+        /**
+         * Applies the latest reported status to the current item and its parent.
+         */
+        public void complete() {
+            if (!reported) {
+                return;
+            }
+            current.setStatus(status);
+            current.setStatusDetails(statusDetails);
+            if (Objects.nonNull(parent)) {
+                parent.update(status, statusDetails);
+            }
+        }
 
+        private void update(final Status status, final StatusDetails details) {
+            this.reported = true;
+            this.status = status;
+            this.statusDetails = details;
         }
     }
 
@@ -0,0 +1,153 @@
+package io.eroshenkoam.xcresults.export;
+
+import io.qameta.allure.model.Label;
+import io.qameta.allure.model.Link;
+import io.qameta.allure.model.TestResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Applies {@code allure.*} activity titles to the test result.
+ * <p>
+ * Titles are dispatched on the {@code allure.} prefix and the directive key that follows it
+ * ({@code allure.<key>:<value>} or {@code allure.<key>.<name>:<value>}), then parsed in a single pass.
+ * Ordinary titles are rejected by the prefix check without any allocation.
+ */
+public class AllureDirectives {
+
+    private static final String PREFIX = "allure.";
+
+    private final Map<String, Directive> directives = new HashMap<>();
+
+    public static AllureDirectives defaults() {
+        return new AllureDirectives()
+                .register("id", label("AS_ID"))
+                .register("name", value(TestResult::setName))
+                .register("description", value(TestResult::setDescription))
+                .register("label", AllureDirectives::applyLabel)
+                .register("link", AllureDirectives::applyLink);
+    }
+
+    public AllureDirectives register(final String key, final Directive directive) {
+        directives.put(key, directive);
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the title is a directive and was applied
+     */
+    public boolean apply(final String title, final TestResult result) {
+        if (!title.startsWith(PREFIX)) {
+            return false;
+        }
+        int separator = PREFIX.length();
+        while (separator < title.length() && title.charAt(separator) != ':' && title.charAt(separator) != '.') {
+            separator++;
+        }
+        if (separator == title.length() || hasLineTerminator(title)) {
+            return false;
+        }
+        final Directive directive = directives.get(title.substring(PREFIX.length(), separator));
+        return Objects.nonNull(directive) && directive.apply(result, title, separator);
+    }
+
+    /**
+     * Directive in form {@code allure.<key>:<value>}, the value is passed as is.
+     */
+    public static Directive value(final BiConsumer<TestResult, String> consumer) {
+        return (result, title, separator) -> {
+            if (title.charAt(separator) != ':') {
+                return false;
+            }
+            consumer.accept(result, title.substring(separator + 1));
+            return true;
+        };
+    }
+
+    /**
+     * Directive in form {@code allure.<key>:<value>} that adds label with given name.
+     */
+    public static Directive label(final String name) {
+        return value((result, value) -> result.getLabels().add(new Label().setName(name).setValue(value)));
+    }
+
+    /**
+     * {@code allure.label.<name>:<value>}.
+     */
+    private static boolean applyLabel(final TestResult result, final String title, final int separator) {
+        if (title.charAt(separator) != '.') {
+            return false;
+        }
+        final int colon = title.indexOf(':', separator + 1);
+        if (colon < 0) {
+            return false;
+        }
+        result.getLabels().add(new Label()
+                .setName(title.substring(separator + 1, colon))
+                .setValue(title.substring(colon + 1).trim()));
+        return true;
+    }
+
+    /**
+     * {@code allure.link.<name>:<url>} or {@code allure.link.<name>[<type>]:<url>}.
+     * <p>
+     * The name ends at the first {@code :}, unless a {@code [} comes first and is followed
+     * by {@code ]:} later in the title, in which case the type spans up to the last {@code ]:}.
+     */
+    private static boolean applyLink(final TestResult result, final String title, final int separator) {
+        if (title.charAt(separator) != '.') {
+            return false;
+        }
+        final int nameStart = separator + 1;
+        for (int i = nameStart; i < title.length(); i++) {
+            final char c = title.charAt(i);
+            if (c == ':') {
+                addLink(result, title.substring(nameStart, i), null, title.substring(i + 1));
+                return true;
+            }
+            if (c == '[') {
+                final int typeEnd = title.lastIndexOf("]:");
+                if (typeEnd > i) {
+                    addLink(result, title.substring(nameStart, i), title.substring(i + 1, typeEnd), title.substring(typeEnd + 2));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void addLink(final TestResult result, final String name, final String type, final String url) {
+        result.getLinks().add(new Link()
+                .setName(name)
+                .setType(type)
+                .setUrl(url.trim()));
+    }
+
+    /**
+     * Directive values never span lines, same as {@code .} in a regular expression.
+     */
+    private static boolean hasLineTerminator(final String title) {
+        for (int i = 0; i < title.length(); i++) {
+            final char c = title.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    public interface Directive {
+
+        /**
+         * @param separator index of the {@code :} or {@code .} that follows the directive key
+         * @return {@code true} if the title matched the directive format
+         */
+        boolean apply(TestResult result, String title, int separator);
+
+    }
+
+}
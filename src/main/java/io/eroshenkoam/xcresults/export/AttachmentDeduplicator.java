@@ -0,0 +1,78 @@
+package io.eroshenkoam.xcresults.export;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replaces exported files with identical content by hard links to the first stored copy.
+ * <p>
+ * Files keep their names, so test results that already refer to them stay valid.
+ * If the file system does not support hard links, files are kept as is.
+ */
+public class AttachmentDeduplicator {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Map<String, Path> stored = new ConcurrentHashMap<>();
+
+    private final AtomicInteger linked = new AtomicInteger();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    public Path deduplicate(final Path file) {
+        try {
+            final Path existing = stored.putIfAbsent(getContentHash(file), file);
+            if (Objects.nonNull(existing) && !existing.equals(file)) {
+                final long size = Files.size(file);
+                final Path link = file.resolveSibling(file.getFileName() + ".link");
+                Files.deleteIfExists(link);
+                Files.createLink(link, existing);
+                Files.move(link, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                linked.incrementAndGet();
+                savedBytes.addAndGet(size);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            // file is kept as is
+        }
+        return file;
+    }
+
+    public int getLinked() {
+        return linked.get();
+    }
+
+    public long getSavedBytes() {
+        return savedBytes.get();
+    }
+
+    private static String getContentHash(final Path file) throws IOException {
+        final MessageDigest digest = getDigest();
+        try (InputStream input = new DigestInputStream(Files.newInputStream(file), digest)) {
+            IOUtils.copy(input, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
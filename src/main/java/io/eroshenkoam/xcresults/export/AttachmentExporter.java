@@ -0,0 +1,131 @@
+package io.eroshenkoam.xcresults.export;
+
+import io.eroshenkoam.xcresults.heic.HeicConversionQueue;
+import io.eroshenkoam.xcresults.heic.HeicConverter;
+import io.eroshenkoam.xcresults.model.ActionTestAttachment;
+import io.eroshenkoam.xcresults.util.ExportMetrics;
+import org.apache.commons.io.FilenameUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static io.eroshenkoam.xcresults.export.ExportProcessor.FILE_EXTENSION_HEIC;
+
+/**
+ * Exports attachments on a bounded worker pool.
+ * <p>
+ * At most {@code parallelism + queueCapacity} attachments are in flight, {@link #submit} blocks
+ * until there is room. HEIC images are handed over to a {@link HeicConversionQueue} so conversion
+ * overlaps with the next exports, an export keeps its slot until the queue has room for the image,
+ * so a slow converter holds back the exports. Failures are collected and reported on {@link #close()}.
+ */
+public class AttachmentExporter implements AutoCloseable {
+
+    private static final int CONVERSION_BATCH_SIZE = 32;
+    private static final int CONVERSION_CAPACITY = CONVERSION_BATCH_SIZE * 2;
+    private static final Duration CONVERSION_FLUSH_DELAY = Duration.ofSeconds(1);
+
+    private final ExecutorService exportExecutor;
+    private final Semaphore capacity;
+
+    private final Exporter exporter;
+    private final HeicConversionQueue conversions;
+
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+    public AttachmentExporter(final int parallelism,
+                              final int queueCapacity,
+                              final Exporter exporter,
+                              final HeicConverter converter) {
+        final int threads = Math.max(1, parallelism);
+        this.exportExecutor = Executors.newFixedThreadPool(threads);
+        this.capacity = new Semaphore(threads + Math.max(0, queueCapacity));
+        this.exporter = exporter;
+        this.conversions = Objects.nonNull(converter)
+                ? new HeicConversionQueue(converter, CONVERSION_BATCH_SIZE, CONVERSION_CAPACITY, CONVERSION_FLUSH_DELAY)
+                : null;
+    }
+
+    /**
+     * @return future of the exported file, HEIC images complete with the converted JPEG file
+     * once their batch is converted, failed exports complete exceptionally. The future completes
+     * on an exporter thread, so dependent work should run on its own executor.
+     */
+    public CompletableFuture<Path> submit(final ActionTestAttachment attachment, final Path output) throws InterruptedException {
+        final CompletableFuture<Path> result = new CompletableFuture<>();
+        result.thenAccept(path -> ExportMetrics.getDefault().recordWritten(ExportMetrics.BYTES_ATTACHMENTS, path));
+        capacity.acquire();
+        try {
+            exportExecutor.execute(() -> export(attachment, output, result));
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Capacity is released before the result completes, so a slot is never held by dependent work,
+     * but only once a HEIC image is accepted by the conversion queue.
+     */
+    private void export(final ActionTestAttachment attachment, final Path output, final CompletableFuture<Path> result) {
+        try {
+            final long start = System.nanoTime();
+            exporter.export(attachment, output);
+            ExportMetrics.getDefault().record(ExportMetrics.PHASE_ATTACHMENTS, start);
+        } catch (Exception e) {
+            failures.add(String.format("%s (%s): %s", output.getFileName(), attachment.getPayloadRefId(), e.getMessage()));
+            capacity.release();
+            result.completeExceptionally(e);
+            return;
+        }
+        if (Objects.nonNull(conversions)
+                && FILE_EXTENSION_HEIC.equals(FilenameUtils.getExtension(output.toString()))) {
+            convert(output, result);
+        } else {
+            capacity.release();
+            result.complete(output);
+        }
+    }
+
+    private void convert(final Path output, final CompletableFuture<Path> result) {
+        final CompletableFuture<Path> converted;
+        try {
+            converted = conversions.add(output);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            capacity.release();
+            result.complete(output);
+            return;
+        }
+        capacity.release();
+        converted.thenAccept(result::complete);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        exportExecutor.shutdown();
+        exportExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        if (Objects.nonNull(conversions)) {
+            conversions.close();
+        }
+        if (!failures.isEmpty()) {
+            System.out.printf("Failed to export %s attachments:%n", failures.size());
+            failures.forEach(failure -> System.out.printf("  %s%n", failure));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Exporter {
+        void export(ActionTestAttachment attachment, Path output) throws Exception;
+    }
+
+}
@@ -1,13 +1,40 @@
 package io.eroshenkoam.xcresults.export;
 
+import io.eroshenkoam.xcresults.bundle.XcResultBundle;
+import io.eroshenkoam.xcresults.carousel.CarouselMode;
+import io.eroshenkoam.xcresults.carousel.CarouselPostProcessor;
+import io.eroshenkoam.xcresults.carousel.SipsThumbnailGenerator;
+import io.eroshenkoam.xcresults.carousel.ThumbnailGenerator;
+import io.eroshenkoam.xcresults.source.BulkAttachmentsXcResultSource;
+import io.eroshenkoam.xcresults.source.CachingXcResultSource;
+import io.eroshenkoam.xcresults.source.NativeXcResultSource;
+import io.eroshenkoam.xcresults.source.RecordingXcResultSource;
+import io.eroshenkoam.xcresults.source.ReferenceCache;
+import io.eroshenkoam.xcresults.source.ReplayXcResultSource;
+import io.eroshenkoam.xcresults.source.XcResultSource;
+import io.eroshenkoam.xcresults.source.XcResultToolSource;
+import io.eroshenkoam.xcresults.util.ExportMetrics;
+import io.eroshenkoam.xcresults.util.ProcessRunner;
+import io.eroshenkoam.xcresults.util.TemplateRenderer;
+import io.eroshenkoam.xcresults.xcode.XcodeToolchain;
 import org.apache.commons.io.FileUtils;
 import picocli.CommandLine;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @CommandLine.Command(
         name = "export", mixinStandardHelpOptions = true,
@@ -33,6 +60,72 @@ public class ExportCommand implements Runnable {
     )
     private String carouselTemplatePath;
 
+    @CommandLine.Option(
+            names = {"--carousel-mode"},
+            description = "Carousel images mode (inline, link), link mode references exported attachment files"
+    )
+    private CarouselMode carouselMode = CarouselMode.inline;
+
+    @CommandLine.Option(
+            names = {"--carousel-thumbnail-size"},
+            description = "Generate carousel thumbnails of given size in pixels with sips (disabled by default)"
+    )
+    private int carouselThumbnailSize;
+
+    @CommandLine.Option(
+            names = {"--deduplicate-attachments"},
+            description = "Hard link exported attachments with identical content"
+    )
+    private boolean deduplicateAttachments;
+
+    @CommandLine.Option(
+            names = {"--parallelism"},
+            description = "Number of concurrent xcresulttool calls (defaults to available processors)"
+    )
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    @CommandLine.Option(
+            names = {"--process-timeout"},
+            description = "Timeout of a single xcresulttool call in seconds (defaults to 600, 0 disables timeout)"
+    )
+    private long processTimeout = 600;
+
+    @CommandLine.Option(
+            names = {"--process-retries"},
+            description = "Number of retries of a failed xcresulttool call (defaults to 2)"
+    )
+    private int processRetries = 2;
+
+    @CommandLine.Option(
+            names = {"--bundle-parallelism"},
+            description = "Number of *.xcresult bundles exported at the same time (defaults to number of bundles)"
+    )
+    private int bundleParallelism;
+
+    @CommandLine.Option(
+            names = {"--record-path"},
+            description = "Record xcresulttool output to directory to replay it later instead of *.xcresult"
+    )
+    private Path recordPath;
+
+    @CommandLine.Option(
+            names = {"--cache-path"},
+            description = "Cache xcresulttool output in directory to speed up repeated exports of the same *.xcresult"
+    )
+    private Path cachePath;
+
+    @CommandLine.Option(
+            names = {"--cache-size"},
+            description = "Maximum reference cache size in megabytes (defaults to 1024)"
+    )
+    private long cacheSize = 1024;
+
+    @CommandLine.Option(
+            names = {"--metrics"},
+            description = "Write export phase timings, process latencies and written bytes to json file"
+    )
+    private Path metricsPath;
+
     @CommandLine.Parameters(
             description = "The directories with *.xcresults"
     )
@@ -46,6 +139,7 @@ public class ExportCommand implements Runnable {
 
     @Override
     public void run() {
+        ExportMetrics.setDefault(new ExportMetrics());
         try {
             final List<Path> input = getInputPaths();
             final Path output = getOutputPath();
@@ -58,20 +152,129 @@ public class ExportCommand implements Runnable {
                 FileUtils.deleteDirectory(output.toFile());
             }
             Files.createDirectories(output);
-            for (Path path: input) {
-                runUnsafe(path, output);
+            ProcessRunner.setDefault(new ProcessRunner(parallelism, Duration.ofSeconds(processTimeout), processRetries));
+            final XcodeToolchain toolchain = XcodeToolchain.detect();
+            System.out.printf("Using %s%n", toolchain);
+            if (!toolchain.isSipsAvailable()) {
+                System.out.println("sips is not available, HEIC attachments will be exported as is");
+            }
+            final ReferenceCache cache = Objects.nonNull(cachePath)
+                    ? new ReferenceCache(cachePath, cacheSize * FileUtils.ONE_MB)
+                    : null;
+            if (Objects.nonNull(cache)) {
+                cache.evict();
+            }
+            try {
+                exportBundles(input, output, toolchain, cache);
+            } finally {
+                if (Objects.nonNull(cache)) {
+                    System.out.printf("Used %s%n", cache);
+                }
+                if (Objects.nonNull(metricsPath)) {
+                    writeMetrics(metricsPath);
+                }
             }
         } catch (Exception e) {
             e.printStackTrace(System.out);
         }
     }
 
-    private void runUnsafe(final Path input, final Path output) throws Exception  {
+    private static void writeMetrics(final Path path) {
+        try {
+            ExportMetrics.getDefault().write(path);
+            System.out.printf("Metrics written to [%s]%n", path);
+        } catch (IOException e) {
+            System.out.printf("Can not write metrics to [%s]: %s%n", path, e.getMessage());
+        }
+    }
+
+    private void exportBundles(final List<Path> input,
+                               final Path output,
+                               final XcodeToolchain toolchain,
+                               final ReferenceCache cache) throws InterruptedException {
+        final int threads = Math.max(1, Math.min(input.size(), bundleParallelism > 0 ? bundleParallelism : input.size()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Map<Path, Future<?>> exports = new LinkedHashMap<>();
+        for (Path path : input) {
+            exports.put(path, executor.submit(() -> {
+                runUnsafe(path, output, toolchain, cache);
+                return null;
+            }));
+        }
+        executor.shutdown();
+        final List<Path> failed = new ArrayList<>();
+        for (Map.Entry<Path, Future<?>> export : exports.entrySet()) {
+            try {
+                export.getValue().get();
+            } catch (ExecutionException e) {
+                System.out.printf("Export xcresults from [%s] failed:%n", export.getKey());
+                e.getCause().printStackTrace(System.out);
+                failed.add(export.getKey());
+            }
+        }
+        if (input.size() > 1) {
+            System.out.printf("Exported %s of %s xcresults%n", input.size() - failed.size(), input.size());
+        }
+    }
+
+    private void runUnsafe(final Path input,
+                           final Path output,
+                           final XcodeToolchain toolchain,
+                           final ReferenceCache cache) throws Exception  {
         System.out.printf("Export xcresults from [%s] to [%s]\n", input, output);
-        final ExportProcessor processor = new ExportProcessor(
-                input, output, addCarouselAttachment, carouselTemplatePath
-        );
-        processor.export();
+        final long start = System.currentTimeMillis();
+        final Path stagingPath = output.resolve(String.format(".attachments-%s", UUID.randomUUID()));
+        try {
+            final ExportProcessor processor = new ExportProcessor(
+                    getSource(input, toolchain, cache, stagingPath), output, toolchain, parallelism,
+                    getPostProcessors(toolchain), deduplicateAttachments
+            );
+            processor.export();
+        } finally {
+            FileUtils.deleteQuietly(stagingPath.toFile());
+        }
+        System.out.printf("Export xcresults from [%s] finished in %s ms%n", input, System.currentTimeMillis() - start);
+    }
+
+    private List<ExportPostProcessor> getPostProcessors(final XcodeToolchain toolchain) {
+        final List<ExportPostProcessor> postProcessors = new ArrayList<>();
+        if (Objects.nonNull(addCarouselAttachment)) {
+            final ThumbnailGenerator thumbnails = carouselThumbnailSize > 0 && toolchain.isSipsAvailable()
+                    ? new SipsThumbnailGenerator(carouselThumbnailSize)
+                    : null;
+            postProcessors.add(new CarouselPostProcessor(
+                    TemplateRenderer.getDefault(), carouselTemplatePath, carouselMode, thumbnails
+            ));
+        }
+        return postProcessors;
+    }
+
+    /**
+     * Payloads are exported in bulk with Xcode 16, older toolchains read them from the bundle
+     * and fall back to {@code xcresulttool} one by one.
+     */
+    private XcResultSource getSource(final Path input,
+                                     final XcodeToolchain toolchain,
+                                     final ReferenceCache cache,
+                                     final Path stagingPath) {
+        XcResultSource source;
+        if (ReplayXcResultSource.isRecording(input)) {
+            System.out.printf("Replay recorded xcresults from [%s]%n", input);
+            source = new ReplayXcResultSource(input);
+        } else if (toolchain.isTestResultsSupported()) {
+            source = new BulkAttachmentsXcResultSource(new XcResultToolSource(input, toolchain), stagingPath);
+        } else if (XcResultBundle.isBundle(input)) {
+            source = new NativeXcResultSource(new XcResultBundle(input), new XcResultToolSource(input, toolchain));
+        } else {
+            source = new XcResultToolSource(input, toolchain);
+        }
+        if (Objects.nonNull(cache) && !ReplayXcResultSource.isRecording(input)) {
+            source = new CachingXcResultSource(source, cache, ReferenceCache.getBundleKey(input));
+        }
+        if (Objects.nonNull(recordPath)) {
+            return new RecordingXcResultSource(source, recordPath.resolve(input.getFileName().toString()));
+        }
+        return source;
     }
 
     private List<Path> getInputPaths() {
@@ -0,0 +1,21 @@
+package io.eroshenkoam.xcresults.export;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Reads test summaries of a bundle in the shape consumed by {@link Allure2ExportFormatter}.
+ */
+public interface ExportEngine {
+
+    /**
+     * @return tests to export, summaries are resolved lazily by {@link #getTestSummaries(ExportTest)}
+     */
+    List<ExportTest> getTests(ExecutorService executor);
+
+    /**
+     * Resolves full summaries of a test, one per test run.
+     */
+    List<ExportTest> getTestSummaries(ExportTest test);
+
+}
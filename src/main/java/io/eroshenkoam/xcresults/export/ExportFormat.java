@@ -6,13 +6,13 @@ public enum  ExportFormat {
 
     allure2(new Allure2ExportFormatter());
 
-    private ExportFormatter formatter;
+    private ExportFormatter<?> formatter;
 
-    ExportFormat(final ExportFormatter formatter) {
+    ExportFormat(final ExportFormatter<?> formatter) {
         this.formatter = formatter;
     }
 
-    public ExportFormatter getFormatter() {
+    public ExportFormatter<?> getFormatter() {
         return formatter;
     }
 
@@ -1,9 +1,7 @@
 package io.eroshenkoam.xcresults.export;
 
-import com.fasterxml.jackson.databind.JsonNode;
+public interface ExportFormatter<T> {
 
-public interface ExportFormatter {
-
-    Object format(ExportMeta meta, JsonNode node);
+    Object format(ExportMeta meta, T node);
 
 }
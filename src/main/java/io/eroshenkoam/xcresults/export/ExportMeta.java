@@ -18,6 +18,12 @@ public class ExportMeta {
         return this.start;
     }
 
+    public ExportMeta copy() {
+        final ExportMeta copy = new ExportMeta().setStart(start);
+        getLabels().forEach(copy::label);
+        return copy;
+    }
+
     public ExportMeta label(final String name, final String value) {
         getLabels().put(name, value);
         return this;
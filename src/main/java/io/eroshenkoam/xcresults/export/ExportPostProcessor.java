@@ -3,10 +3,12 @@ package io.eroshenkoam.xcresults.export;
 import io.qameta.allure.model.TestResult;
 
 import java.nio.file.Path;
-import java.util.Map;
 
+/**
+ * Enriches test results before they are written, once all attachments of the test are exported.
+ */
 public interface ExportPostProcessor {
 
-    void processTestResults(Path outputPath, Map<Path, TestResult> testResults);
+    void processTestResult(Path outputPath, TestResult testResult);
 
 }
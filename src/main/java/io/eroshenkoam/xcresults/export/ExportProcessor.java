@@ -1,304 +1,250 @@
 package io.eroshenkoam.xcresults.export;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import freemarker.template.Version;
-import io.eroshenkoam.xcresults.carousel.CarouselPostProcessor;
+import io.eroshenkoam.xcresults.heic.HeicConverter;
+import io.eroshenkoam.xcresults.heic.SipsHeicConverter;
+import io.eroshenkoam.xcresults.model.ActionTestAttachment;
+import io.eroshenkoam.xcresults.model.ActionTestSummary;
+import io.eroshenkoam.xcresults.source.XcResultSource;
+import io.eroshenkoam.xcresults.util.ExportMetrics;
+import io.eroshenkoam.xcresults.xcode.XcodeToolchain;
 import io.qameta.allure.model.ExecutableItem;
 import io.qameta.allure.model.TestResult;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.FilenameUtils;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static io.eroshenkoam.xcresults.util.FormatUtil.getResultFilePath;
-import static io.eroshenkoam.xcresults.util.FormatUtil.parseDate;
-import static io.eroshenkoam.xcresults.util.ProcessUtil.*;
 
 public class ExportProcessor {
 
     public static final String FILE_EXTENSION_HEIC = "heic";
 
-    private static final String ACTIONS = "actions";
-    private static final String ACTION_RESULT = "actionResult";
+    private static final int ATTACHMENT_QUEUE_FACTOR = 4;
 
-    private static final String RUN_DESTINATION = "runDestination";
-    private static final String START_TIME = "startedTime";
-
-    private static final String SUMMARIES = "summaries";
-    private static final String TESTABLE_SUMMARIES = "testableSummaries";
-
-    private static final String TESTS = "tests";
-    private static final String SUBTESTS = "subtests";
-
-    private static final String FAILURE_SUMMARIES = "failureSummaries";
-    private static final String ACTIVITY_SUMMARIES = "activitySummaries";
-    private static final String SUBACTIVITIES = "subactivities";
-
-    private static final String ATTACHMENTS = "attachments";
-
-    private static final String FILENAME = "filename";
-    private static final String PAYLOAD_REF = "payloadRef";
-
-    private static final String SUMMARY_REF = "summaryRef";
-
-    private static final String SUITE = "suite";
-
-    private static final String ID = "id";
-    private static final String TYPE = "_type";
-    private static final String NAME = "_name";
-    private static final String VALUE = "_value";
-    private static final String VALUES = "_values";
-    private static final String DISPLAY_NAME = "displayName";
-    private static final String TARGET_NAME = "targetName";
-
-    private static final String TEST_REF = "testsRef";
+    private static final int SUMMARY_WINDOW_FACTOR = 4;
 
     private final ObjectMapper mapper = new ObjectMapper()
             .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
 
-    private final Path inputPath;
-    private final Path outputPath;
-
-    private Boolean addCarouselAttachment;
-    private String carouselTemplatePath;
+    private final Allure2ExportFormatter formatter = new Allure2ExportFormatter();
 
+    private final XcResultSource source;
+    private ExportEngine engine;
+    private final Path outputPath;
+    private final XcodeToolchain toolchain;
+    private final int parallelism;
+    private final List<ExportPostProcessor> postProcessors;
+    private final AttachmentDeduplicator deduplicator;
 
-    public ExportProcessor(final Path inputPath,
+    public ExportProcessor(final XcResultSource source,
                            final Path outputPath,
-                           final Boolean addCarouselAttachment,
-                           final String carouselTemplatePath) {
-        this.inputPath = inputPath;
+                           final XcodeToolchain toolchain,
+                           final int parallelism,
+                           final List<ExportPostProcessor> postProcessors,
+                           final boolean deduplicateContent) {
+        this.source = source;
+        this.engine = source.hasTestResults() ? new TestResultsExportEngine(source) : new LegacyExportEngine(source);
         this.outputPath = outputPath;
-        this.addCarouselAttachment = addCarouselAttachment;
-        this.carouselTemplatePath = carouselTemplatePath;
+        this.toolchain = toolchain;
+        this.parallelism = parallelism;
+        this.postProcessors = postProcessors;
+        this.deduplicator = deduplicateContent ? new AttachmentDeduplicator() : null;
     }
 
     public void export() throws Exception {
-        final JsonNode node = readSummary();
-
-        final Map<String, ExportMeta> testRefIds = new HashMap<>();
-        for (JsonNode action : node.get(ACTIONS).get(VALUES)) {
-            if (action.get(ACTION_RESULT).has(TEST_REF)) {
-                final ExportMeta meta = new ExportMeta();
-                if (action.has(RUN_DESTINATION)) {
-                    meta.label(RUN_DESTINATION, action.get(RUN_DESTINATION).get(DISPLAY_NAME).get(VALUE).asText());
-                }
-                if (action.has(START_TIME)) {
-                    meta.setStart(parseDate(action.get(START_TIME).get(VALUE).textValue()));
+        final Deque<CompletableFuture<Void>> deferredWrites = new ArrayDeque<>();
+        final Map<String, CompletableFuture<Path>> exportedAttachments = new HashMap<>();
+        int duplicatesCount = 0;
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        final ExecutorService writeExecutor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try (AttachmentExporter attachmentExporter = createAttachmentExporter()) {
+            final long summaryStart = System.nanoTime();
+            final List<ExportTest> tests = getTests(executor);
+            ExportMetrics.getDefault().record(ExportMetrics.PHASE_SUMMARY, summaryStart);
+            System.out.printf("Export information about %s test summaries...%n", tests.size());
+
+            final int windowSize = Math.max(1, parallelism) * SUMMARY_WINDOW_FACTOR;
+            final Deque<CompletableFuture<List<ExportedTest>>> window = new ArrayDeque<>();
+            final Iterator<ExportTest> pending = tests.iterator();
+            while (pending.hasNext() || !window.isEmpty()) {
+                while (pending.hasNext() && window.size() < windowSize) {
+                    final ExportTest test = pending.next();
+                    window.add(CompletableFuture.supplyAsync(() -> exportTestSummaries(test), executor));
                 }
-                testRefIds.put(action.get(ACTION_RESULT).get(TEST_REF).get(ID).get(VALUE).asText(), meta);
-            }
-        }
-
-        final Map<JsonNode, ExportMeta> testSummaries = new HashMap<>();
-        testRefIds.forEach((testRefId, meta) -> {
-            final JsonNode testRef = getReference(testRefId);
-            for (JsonNode summary : testRef.get(SUMMARIES).get(VALUES)) {
-                for (JsonNode testableSummary : summary.get(TESTABLE_SUMMARIES).get(VALUES)) {
-                    final ExportMeta testMeta = getTestMeta(meta, testableSummary);
-                    if (testableSummary.has(TESTS) && testableSummary.get(TESTS).has(VALUES)) {
-                        for (JsonNode test : testableSummary.get(TESTS).get(VALUES)) {
-                            getTestSummaries(test).forEach(testSummary -> {
-                                testSummaries.put(testSummary, testMeta);
-                            });
+                for (ExportedTest exported : window.poll().join()) {
+                    final Map<String, CompletableFuture<Path>> attachments = new HashMap<>();
+                    for (Map.Entry<String, ActionTestAttachment> attachment : exported.attachmentNodes.entrySet()) {
+                        CompletableFuture<Path> exportedAttachment = exportedAttachments.get(attachment.getKey());
+                        if (Objects.isNull(exportedAttachment)) {
+                            exportedAttachment = attachmentExporter.submit(
+                                    attachment.getValue(), outputPath.resolve(attachment.getKey())
+                            );
+                            if (Objects.nonNull(deduplicator)) {
+                                exportedAttachment = exportedAttachment.thenApplyAsync(
+                                        deduplicator::deduplicate, writeExecutor
+                                );
+                            }
+                            exportedAttachments.put(attachment.getKey(), exportedAttachment);
+                        } else {
+                            duplicatesCount++;
+                        }
+                        attachments.put(attachment.getKey(), exportedAttachment);
+                    }
+                    if (exported.deferred) {
+                        deferredWrites.removeIf(CompletableFuture::isDone);
+                        while (deferredWrites.size() >= windowSize) {
+                            deferredWrites.poll().join();
                         }
-                    } else {
-                        System.out.printf("No tests found for '%s'%n", testableSummary.get("name").get(VALUE));
+                        deferredWrites.add(CompletableFuture
+                                .allOf(attachments.values().toArray(new CompletableFuture[0]))
+                                .handle((ignored, e) -> attachments)
+                                .thenAcceptAsync(
+                                        testAttachments -> writeTestResult(exported.testResult, testAttachments),
+                                        writeExecutor
+                                ));
                     }
                 }
             }
-        });
-
-        System.out.printf("Export information about %s test summaries...%n", testSummaries.size());
-        final Map<String, String> attachmentsRefs = new HashMap<>();
-        final Map<Path, TestResult> testResults = new HashMap<>();
-        for (final Map.Entry<JsonNode, ExportMeta> entry : testSummaries.entrySet()) {
-            final JsonNode testSummary = entry.getKey();
-            final ExportMeta meta = entry.getValue();
-
-            final TestResult testResult = new Allure2ExportFormatter().format(meta, testSummary);
-            final Path testSummaryPath = getResultFilePath(outputPath);
-            mapper.writeValue(testSummaryPath.toFile(), testResult);
-
-            final Map<String, List<String>> attachmentSources = getAttachmentSources(testResult);
-            final List<JsonNode> summaries = new ArrayList<>();
-            summaries.addAll(getAttributeValues(testSummary, ACTIVITY_SUMMARIES));
-            summaries.addAll(getAttributeValues(testSummary, FAILURE_SUMMARIES));
-            summaries.forEach(summary -> {
-                getAttachmentRefs(summary).forEach((name, ref) -> {
-                    if (attachmentSources.containsKey(name)) {
-                        final List<String> sources = attachmentSources.get(name);
-                        sources.forEach(source -> attachmentsRefs.put(source, ref));
-                    }
-                });
-            });
-            testResults.put(testSummaryPath, testResult);
-        }
-        System.out.printf("Export information about %s attachments...%n", attachmentsRefs.size());
-        for (Map.Entry<String, String> attachment : attachmentsRefs.entrySet()) {
-            final String attachmentRef = attachment.getValue();
-            final Path attachmentPath = outputPath.resolve(attachment.getKey());
-            exportReference(attachmentRef, attachmentPath);
-        }
-        final List<ExportPostProcessor> postProcessors = new ArrayList<>();
-        if (Objects.nonNull(addCarouselAttachment)) {
-            postProcessors.add(new CarouselPostProcessor(carouselTemplatePath));
+        } finally {
+            executor.shutdownNow();
         }
-        postProcessors.forEach(postProcessor -> postProcessor.processTestResults(outputPath, testResults));
-    }
-
-    private ExportMeta getTestMeta(final ExportMeta meta, final JsonNode testableSummary) {
-        final ExportMeta exportMeta = new ExportMeta();
-        exportMeta.setStart(meta.getStart());
-        meta.getLabels().forEach(exportMeta::label);
-        exportMeta.label(SUITE, testableSummary.get(TARGET_NAME).get(VALUE).asText());
-        return exportMeta;
-    }
-
-    private Map<String, List<String>> getAttachmentSources(final ExecutableItem executableItem) {
-        final Map<String, List<String>> attachments = new HashMap<>();
-        if (Objects.nonNull(executableItem.getAttachments())) {
-            executableItem.getAttachments().forEach(a -> {
-                final List<String> sources = attachments.getOrDefault(a.getName(), new ArrayList<>());
-                sources.add(a.getSource());
-                attachments.put(a.getName(), sources);
-            });
+        try {
+            deferredWrites.forEach(CompletableFuture::join);
+        } finally {
+            writeExecutor.shutdown();
+            writeExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
         }
-        if (Objects.nonNull(executableItem.getSteps())) {
-            executableItem.getSteps().forEach(s -> attachments.putAll(getAttachmentSources(s)));
+        System.out.printf("Exported %s attachments, %s duplicated attachments reused%n",
+                exportedAttachments.size(), duplicatesCount);
+        if (Objects.nonNull(deduplicator) && deduplicator.getLinked() > 0) {
+            System.out.printf("Linked %s attachments with identical content (%s bytes saved)%n",
+                    deduplicator.getLinked(), deduplicator.getSavedBytes());
         }
-        return attachments;
     }
 
-    private Map<String, String> getAttachmentRefs(final JsonNode test) {
-        final Map<String, String> refs = new HashMap<>();
-        if (test.has(ATTACHMENTS)) {
-            for (final JsonNode attachment : test.get(ATTACHMENTS).get(VALUES)) {
-                if (attachment.has(PAYLOAD_REF)) {
-                    final String fileName = attachment.get(FILENAME).get(VALUE).asText();
-                    final String attachmentRef = attachment.get(PAYLOAD_REF).get(ID).get(VALUE).asText();
-                    refs.put(fileName, attachmentRef);
-                }
-            }
+    /**
+     * Bundles that can not be read with {@code get test-results} are read in the legacy format.
+     */
+    private List<ExportTest> getTests(final ExecutorService executor) {
+        if (!(engine instanceof TestResultsExportEngine)) {
+            return engine.getTests(executor);
         }
-        if (test.has(SUBACTIVITIES)) {
-            for (final JsonNode subActivity : test.get(SUBACTIVITIES).get(VALUES)) {
-                refs.putAll(getAttachmentRefs(subActivity));
-            }
+        try {
+            return engine.getTests(executor);
+        } catch (RuntimeException e) {
+            System.out.printf("Can not read test results, falling back to the legacy format: %s%n", e.getMessage());
+            engine = new LegacyExportEngine(source);
+            return engine.getTests(executor);
         }
-        return refs;
     }
 
-    private List<JsonNode> getTestSummaries(final JsonNode test) {
-        final List<JsonNode> summaries = new ArrayList<>();
-        if (test.has(SUMMARY_REF)) {
-            final String ref = test.get(SUMMARY_REF).get(ID).get(VALUE).asText();
-            summaries.add(getReference(ref));
-        } else {
-            if (test.has(TYPE) && test.get(TYPE).get(NAME).textValue().equals("ActionTestMetadata")) {
-                summaries.add(test);
-            }
+    private List<ExportedTest> exportTestSummaries(final ExportTest test) {
+        final List<ExportedTest> exported = new ArrayList<>();
+        final long referencesStart = System.nanoTime();
+        final List<ExportTest> summaries = engine.getTestSummaries(test);
+        ExportMetrics.getDefault().record(ExportMetrics.PHASE_REFERENCES, referencesStart);
+        for (ExportTest summary : summaries) {
+            exported.add(exportTestSummary(summary.getMeta(), summary.getTest()));
         }
-
-        if (test.has(SUBTESTS)) {
-            for (final JsonNode subTest : test.get(SUBTESTS).get(VALUES)) {
-                summaries.addAll(getTestSummaries(subTest));
-            }
-        }
-        return summaries;
+        return exported;
     }
 
-    private List<JsonNode> getAttributeValues(final JsonNode node, final String attributeName) {
-        final List<JsonNode> result = new ArrayList<>();
-        if (node.has(attributeName) && node.get(attributeName).has(VALUES)) {
-            node.get(attributeName).get(VALUES).forEach(result::add);
+    /**
+     * Test results are written once, results that need post-processing or refer to HEIC images
+     * are written after their attachments are exported, on a separate pool, so neither attachment
+     * export nor HEIC conversion threads are held by post-processing. At most a window of such
+     * results waits for its attachments, the oldest one is awaited before more tests are read.
+     */
+    private ExportedTest exportTestSummary(final ExportMeta meta, final ActionTestSummary testSummary) {
+        final Map<String, ActionTestAttachment> attachmentNodes = new HashMap<>();
+        final long formatStart = System.nanoTime();
+        final TestResult testResult = formatter.format(meta, testSummary, attachmentNodes);
+        ExportMetrics.getDefault().record(ExportMetrics.PHASE_FORMAT, formatStart);
+
+        final boolean deferred = !attachmentNodes.isEmpty() && (!postProcessors.isEmpty()
+                || attachmentNodes.keySet().stream().anyMatch(source -> source.endsWith("." + FILE_EXTENSION_HEIC)));
+        if (!deferred) {
+            writeTestResult(testResult, Collections.emptyMap());
         }
-        return result;
+        return new ExportedTest(testResult, attachmentNodes, deferred);
     }
 
-    private static boolean isLegacyMode() {
+    private void writeTestResult(final TestResult testResult, final Map<String, CompletableFuture<Path>> attachments) {
+        final Map<String, String> exportedSources = new HashMap<>();
+        attachments.forEach((source, attachment) -> {
+            if (!attachment.isCompletedExceptionally()) {
+                exportedSources.put(source, attachment.join().getFileName().toString());
+            }
+        });
+        updateAttachmentSources(testResult, exportedSources);
+        postProcessors.forEach(postProcessor -> postProcessor.processTestResult(outputPath, testResult));
+        final long writeStart = System.nanoTime();
+        final Path resultPath = getResultFilePath(outputPath);
         try {
-            final String output = readProcessOutputAsString(new ProcessBuilder("xcodebuild", "-version"));
-            final String versionLine = output.split("\n")[0];
-            final Version version = new Version(versionLine.replaceFirst("Xcode ", "").trim());
-            return version.getMajor() >= 16;
-        } catch (final Exception e) {
-            return false;
+            mapper.writeValue(resultPath.toFile(), testResult);
+            ExportMetrics.getDefault().record(ExportMetrics.PHASE_WRITE, writeStart);
+            ExportMetrics.getDefault().recordWritten(ExportMetrics.BYTES_RESULTS, resultPath);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
-    private ProcessBuilder processBuilderForXCResultToolCommand(String... command) {
-        final ProcessBuilder builder = new ProcessBuilder();
-        builder.command(command);
-        builder.command().add(0, "xcrun");
-        builder.command().add(1, "xcresulttool");
-        if (isLegacyMode()) {
-            builder.command().add("--legacy");
+    /**
+     * Points attachments to the files that were actually produced, e.g. converted HEIC images.
+     */
+    private void updateAttachmentSources(final ExecutableItem executableItem, final Map<String, String> exportedSources) {
+        if (Objects.nonNull(executableItem.getAttachments())) {
+            executableItem.getAttachments().forEach(attachment -> {
+                final String exported = exportedSources.get(attachment.getSource());
+                if (Objects.nonNull(exported)) {
+                    attachment.setSource(exported);
+                }
+            });
+        }
+        if (Objects.nonNull(executableItem.getSteps())) {
+            executableItem.getSteps().forEach(step -> updateAttachmentSources(step, exportedSources));
         }
-        return builder;
-    }
-
-    private JsonNode readSummary() {
-        final ProcessBuilder builder = processBuilderForXCResultToolCommand(
-                "get",
-                "--format", "json",
-                "--path", inputPath.toAbsolutePath().toString()
-        );
-        return readProcessOutputAsJson(builder, mapper);
     }
 
-    private JsonNode getReference(final String id) {
-        final ProcessBuilder builder = processBuilderForXCResultToolCommand(
-                "get",
-                "--format", "json",
-                "--path", inputPath.toAbsolutePath().toString(),
-                "--id", id
+    private AttachmentExporter createAttachmentExporter() {
+        final HeicConverter converter = toolchain.isSipsAvailable() ? new SipsHeicConverter() : null;
+        return new AttachmentExporter(
+                parallelism,
+                parallelism * ATTACHMENT_QUEUE_FACTOR,
+                (attachment, output) -> source.exportReference(attachment.getPayloadRefId(), attachment.getUuid(), output),
+                converter
         );
-        return readProcessOutputAsJson(builder, mapper);
     }
 
-    private void exportReference(final String id, final Path output) {
-        final ProcessBuilder exportBuilder = processBuilderForXCResultToolCommand(
-                "export",
-                "--type", "file",
-                "--path", inputPath.toAbsolutePath().toString(),
-                "--id", id,
-                "--output-path", output.toAbsolutePath().toString()
-        );
+    private static final class ExportedTest {
 
-        readProcessOutput(exportBuilder, (i) -> null);
+        private final TestResult testResult;
+        private final Map<String, ActionTestAttachment> attachmentNodes;
+        private final boolean deferred;
 
-        if (FILE_EXTENSION_HEIC.equals(FilenameUtils.getExtension(output.toString()))) {
-            convertHeicToJpeg(output);
+        private ExportedTest(final TestResult testResult,
+                             final Map<String, ActionTestAttachment> attachmentNodes,
+                             final boolean deferred) {
+            this.testResult = testResult;
+            this.attachmentNodes = attachmentNodes;
+            this.deferred = deferred;
         }
-    }
 
-    private void convertHeicToJpeg(Path heicPath) {
-        try {
-            final Path parent = heicPath.getParent();
-            final String jpegFilename = String.format("%s.%s", FilenameUtils.getBaseName(heicPath.toString()), "jpeg");
-            final Path jpegFilePath = parent.resolve(jpegFilename);
-            final ProcessBuilder convertBuilder = new ProcessBuilder();
-            convertBuilder.command(
-                    "sips", "-s",
-                    "format", "jpeg",
-                    heicPath.toAbsolutePath().toString(),
-                    "--out", jpegFilePath.toAbsolutePath().toString()
-            );
-            Process process = convertBuilder.start();
-            process.waitFor();
-            FileUtils.deleteQuietly(heicPath.toFile());
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException(e);
-        }
     }
 
 }
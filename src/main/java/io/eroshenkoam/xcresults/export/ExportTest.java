@@ -0,0 +1,26 @@
+package io.eroshenkoam.xcresults.export;
+
+import io.eroshenkoam.xcresults.model.ActionTestSummary;
+
+/**
+ * Test summary with the meta information of the run it belongs to.
+ */
+public final class ExportTest {
+
+    private final ActionTestSummary test;
+    private final ExportMeta meta;
+
+    public ExportTest(final ActionTestSummary test, final ExportMeta meta) {
+        this.test = test;
+        this.meta = meta;
+    }
+
+    public ActionTestSummary getTest() {
+        return test;
+    }
+
+    public ExportMeta getMeta() {
+        return meta;
+    }
+
+}
@@ -2,7 +2,7 @@ package io.eroshenkoam.xcresults.export;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
-public class JsonExportFormatter implements ExportFormatter {
+public class JsonExportFormatter implements ExportFormatter<JsonNode> {
     @Override
     public JsonNode format(final ExportMeta meta, final JsonNode node) {
         return node;
@@ -0,0 +1,107 @@
+package io.eroshenkoam.xcresults.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eroshenkoam.xcresults.model.ActionRecord;
+import io.eroshenkoam.xcresults.model.ActionTestPlanRunSummaries;
+import io.eroshenkoam.xcresults.model.ActionTestSummary;
+import io.eroshenkoam.xcresults.model.ActionTestableSummary;
+import io.eroshenkoam.xcresults.model.ActionsInvocationRecord;
+import io.eroshenkoam.xcresults.model.XcResultModule;
+import io.eroshenkoam.xcresults.source.XcResultSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Walks the legacy object graph: invocation record, test plan summaries of every action
+ * and a summary reference per test.
+ */
+public class LegacyExportEngine implements ExportEngine {
+
+    private static final String RUN_DESTINATION = "runDestination";
+
+    private static final String SUITE = "suite";
+
+    private static final String TEST_METADATA = "ActionTestMetadata";
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new XcResultModule());
+
+    private final XcResultSource source;
+
+    public LegacyExportEngine(final XcResultSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public List<ExportTest> getTests(final ExecutorService executor) {
+        final ActionsInvocationRecord record = readSummary();
+
+        final Map<CompletableFuture<ActionTestPlanRunSummaries>, ExportMeta> testRefs = new LinkedHashMap<>();
+        for (ActionRecord action : record.getActions()) {
+            if (Objects.nonNull(action.getTestsRefId())) {
+                final ExportMeta meta = new ExportMeta();
+                if (Objects.nonNull(action.getRunDestinationName())) {
+                    meta.label(RUN_DESTINATION, action.getRunDestinationName());
+                }
+                if (Objects.nonNull(action.getStartedTime())) {
+                    meta.setStart(action.getStartedTime());
+                }
+                final String testRefId = action.getTestsRefId();
+                testRefs.put(
+                        CompletableFuture.supplyAsync(() -> getReference(testRefId, ActionTestPlanRunSummaries.class), executor),
+                        meta
+                );
+            }
+        }
+
+        final List<ExportTest> tests = new ArrayList<>();
+        testRefs.forEach((testRefFuture, meta) -> {
+            final ActionTestPlanRunSummaries testRef = testRefFuture.join();
+            for (ActionTestableSummary testableSummary : testRef.getTestableSummaries()) {
+                final ExportMeta testMeta = meta.copy().label(SUITE, testableSummary.getTargetName());
+                if (Objects.nonNull(testableSummary.getTests()) && !testableSummary.getTests().isEmpty()) {
+                    for (ActionTestSummary test : testableSummary.getTests()) {
+                        addTests(test, testMeta, tests);
+                    }
+                } else {
+                    System.out.printf("No tests found for '%s'%n", testableSummary.getName());
+                }
+            }
+        });
+        return tests;
+    }
+
+    @Override
+    public List<ExportTest> getTestSummaries(final ExportTest test) {
+        if (Objects.nonNull(test.getTest().getSummaryRefId())) {
+            final ActionTestSummary summary = getReference(test.getTest().getSummaryRefId(), ActionTestSummary.class);
+            return Collections.singletonList(new ExportTest(summary, test.getMeta()));
+        }
+        return Collections.singletonList(test);
+    }
+
+    private void addTests(final ActionTestSummary test, final ExportMeta meta, final List<ExportTest> tests) {
+        if (Objects.nonNull(test.getSummaryRefId()) || TEST_METADATA.equals(test.getType())) {
+            tests.add(new ExportTest(test, meta));
+        }
+        for (final ActionTestSummary subTest : test.getSubtests()) {
+            addTests(subTest, meta, tests);
+        }
+    }
+
+    private ActionsInvocationRecord readSummary() {
+        return source.readSummary(input -> mapper.readValue(input, ActionsInvocationRecord.class));
+    }
+
+    private <T> T getReference(final String id, final Class<T> type) {
+        return source.readReference(id, input -> mapper.readValue(input, type));
+    }
+
+}
@@ -0,0 +1,222 @@
+package io.eroshenkoam.xcresults.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import io.eroshenkoam.xcresults.model.ActionRecord;
+import io.eroshenkoam.xcresults.model.ActionTestActivitySummary;
+import io.eroshenkoam.xcresults.model.ActionTestFailureSummary;
+import io.eroshenkoam.xcresults.model.ActionTestPlanRunSummaries;
+import io.eroshenkoam.xcresults.model.ActionTestStatus;
+import io.eroshenkoam.xcresults.model.ActionTestSummary;
+import io.eroshenkoam.xcresults.model.ActionTestableSummary;
+import io.eroshenkoam.xcresults.model.TestResultsReader;
+import io.eroshenkoam.xcresults.model.TestRunActivities;
+import io.eroshenkoam.xcresults.model.XcResultReader.ValueReader;
+import io.eroshenkoam.xcresults.source.TestResultsCommand;
+import io.eroshenkoam.xcresults.source.XcResultSource;
+import io.eroshenkoam.xcresults.util.ExportMetrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static io.eroshenkoam.xcresults.model.TestResultsReader.ASSERTION_FAILURE;
+import static io.eroshenkoam.xcresults.model.TestResultsReader.TEST_METADATA;
+import static io.eroshenkoam.xcresults.model.TestResultsReader.TEST_RUN;
+
+/**
+ * Reads tests with {@code xcresulttool get test-results} (Xcode 16).
+ * <p>
+ * The whole test tree with statuses and failure messages is read in a single call,
+ * then activities are read once per test and split into one summary per test run.
+ * {@code xcresulttool} only returns activities for a single {@code --test-id}, so the number of
+ * calls grows with the number of tests, they are bounded by {@code --parallelism} like legacy references.
+ * <p>
+ * Test nodes only have a duration: a run starts with its first activity and lasts for the duration
+ * of its node. A run without activities has no recorded start, it starts with the test plan run
+ * and is counted as {@value ExportMetrics#COUNT_SYNTHESIZED_TIMES} in the export metrics.
+ */
+public class TestResultsExportEngine implements ExportEngine {
+
+    private static final String RUN_DESTINATION = "runDestination";
+
+    private static final String SUITE = "suite";
+
+    private final JsonFactory factory = new JsonFactory();
+
+    private final XcResultSource source;
+
+    public TestResultsExportEngine(final XcResultSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public List<ExportTest> getTests(final ExecutorService executor) {
+        final CompletableFuture<ActionRecord> summary = CompletableFuture.supplyAsync(
+                () -> read(TestResultsCommand.SUMMARY, null, TestResultsReader::readSummary), executor
+        );
+        final ActionTestPlanRunSummaries testPlan = read(TestResultsCommand.TESTS, null, TestResultsReader::readTests);
+        final ActionRecord action = summary.join();
+
+        final ExportMeta meta = new ExportMeta().setStart(action.getStartedTime());
+        if (Objects.nonNull(action.getRunDestinationName())) {
+            meta.label(RUN_DESTINATION, action.getRunDestinationName());
+        }
+        final List<ExportTest> tests = new ArrayList<>();
+        for (ActionTestableSummary testableSummary : testPlan.getTestableSummaries()) {
+            final ExportMeta testMeta = meta.copy().label(SUITE, testableSummary.getTargetName());
+            if (Objects.nonNull(testableSummary.getTests()) && !testableSummary.getTests().isEmpty()) {
+                for (ActionTestSummary test : testableSummary.getTests()) {
+                    addTests(test, testMeta, tests);
+                }
+            } else {
+                System.out.printf("No tests found for '%s'%n", testableSummary.getName());
+            }
+        }
+        return tests;
+    }
+
+    /**
+     * Activities of every run are matched with the runs of the test tree by position,
+     * a test that ran once or whose runs do not match gets the status of the test itself.
+     */
+    @Override
+    public List<ExportTest> getTestSummaries(final ExportTest test) {
+        final ActionTestSummary metadata = test.getTest();
+        final List<TestRunActivities> runs = read(
+                TestResultsCommand.ACTIVITIES, metadata.getIdentifier(), TestResultsReader::readActivities
+        );
+        if (runs.isEmpty()) {
+            ExportMetrics.getDefault().count(ExportMetrics.COUNT_SYNTHESIZED_TIMES);
+            return Collections.singletonList(new ExportTest(
+                    getSummary(metadata, metadata, Collections.emptyList(), test.getMeta()), test.getMeta()
+            ));
+        }
+        final List<ActionTestSummary> runNodes = new ArrayList<>();
+        addRuns(metadata, runNodes);
+        final boolean matched = runNodes.size() == runs.size();
+        final List<ExportTest> summaries = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i++) {
+            final TestRunActivities run = runs.get(i);
+            final ActionTestSummary node = matched ? runNodes.get(i) : metadata;
+            final ExportMeta meta = Objects.nonNull(run.getDeviceName())
+                    ? test.getMeta().copy().label(RUN_DESTINATION, run.getDeviceName())
+                    : test.getMeta();
+            if (Objects.isNull(getStart(run.getActivities()))) {
+                ExportMetrics.getDefault().count(ExportMetrics.COUNT_SYNTHESIZED_TIMES);
+            }
+            summaries.add(new ExportTest(getSummary(metadata, node, run.getActivities(), meta), meta));
+        }
+        return summaries;
+    }
+
+    /**
+     * Failures of the test tree have no time, they are reported at the start of the run.
+     */
+    private ActionTestSummary getSummary(final ActionTestSummary metadata,
+                                         final ActionTestSummary run,
+                                         final List<ActionTestActivitySummary> activities,
+                                         final ExportMeta meta) {
+        final boolean hasFailureActivity = hasFailureActivity(activities);
+        final Long start = getStart(activities);
+        final Long timestamp = Objects.nonNull(start) ? start : meta.getStart();
+        final List<ActionTestFailureSummary> failures = new ArrayList<>();
+        addFailures(run, failures);
+        final List<ActionTestFailureSummary> runFailures = new ArrayList<>();
+        for (ActionTestFailureSummary failure : failures) {
+            runFailures.add(new ActionTestFailureSummary()
+                    .setUuid(failure.getUuid())
+                    .setMessage(failure.getMessage())
+                    .setCallStack(failure.getCallStack())
+                    .setTimestamp(timestamp)
+                    .setTopLevelFailure(!hasFailureActivity));
+        }
+        final Double duration = Objects.nonNull(run.getDuration()) ? run.getDuration() : metadata.getDuration();
+        if (Objects.nonNull(start) && Objects.nonNull(duration)) {
+            extendFinish(activities, start + (long) (duration * 1000));
+        }
+        final ActionTestStatus status = Objects.nonNull(run.getTestStatus()) && run.getTestStatus() != ActionTestStatus.UNKNOWN
+                ? run.getTestStatus()
+                : metadata.getTestStatus();
+        return new ActionTestSummary()
+                .setType(TEST_METADATA)
+                .setName(metadata.getName())
+                .setIdentifier(metadata.getIdentifier())
+                .setTestStatus(status)
+                .setDuration(duration)
+                .setActivitySummaries(activities)
+                .setFailureSummaries(runFailures);
+    }
+
+    private Long getStart(final List<ActionTestActivitySummary> activities) {
+        return activities.isEmpty() ? null : activities.get(0).getStart();
+    }
+
+    /**
+     * Activities only have start times, the last ones are extended to the end of the test.
+     */
+    private void extendFinish(final List<ActionTestActivitySummary> activities, final long finish) {
+        if (activities.isEmpty()) {
+            return;
+        }
+        final ActionTestActivitySummary last = activities.get(activities.size() - 1);
+        if (Objects.nonNull(last.getFinish()) && last.getFinish() < finish) {
+            last.setFinish(finish);
+            extendFinish(last.getSubactivities(), finish);
+        }
+    }
+
+    private void addTests(final ActionTestSummary test, final ExportMeta meta, final List<ExportTest> tests) {
+        if (TEST_METADATA.equals(test.getType())) {
+            tests.add(new ExportTest(test, meta));
+            return;
+        }
+        for (final ActionTestSummary subTest : test.getSubtests()) {
+            addTests(subTest, meta, tests);
+        }
+    }
+
+    /**
+     * Runs may be nested, e.g. repetitions on every device, only the innermost runs have activities.
+     */
+    private void addRuns(final ActionTestSummary node, final List<ActionTestSummary> runs) {
+        for (ActionTestSummary child : node.getSubtests()) {
+            if (TEST_RUN.equals(child.getType())) {
+                final int size = runs.size();
+                addRuns(child, runs);
+                if (runs.size() == size) {
+                    runs.add(child);
+                }
+            }
+        }
+    }
+
+    private void addFailures(final ActionTestSummary node, final List<ActionTestFailureSummary> failures) {
+        failures.addAll(node.getFailureSummaries());
+        for (ActionTestSummary child : node.getSubtests()) {
+            addFailures(child, failures);
+        }
+    }
+
+    private boolean hasFailureActivity(final List<ActionTestActivitySummary> activities) {
+        for (ActionTestActivitySummary activity : activities) {
+            if (ASSERTION_FAILURE.equals(activity.getActivityType()) || hasFailureActivity(activity.getSubactivities())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private <T> T read(final TestResultsCommand command, final String testId, final ValueReader<T> reader) {
+        return source.readTestResults(command, testId, input -> {
+            try (JsonParser parser = factory.createParser(input)) {
+                parser.nextToken();
+                return reader.read(parser);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,140 @@
+package io.eroshenkoam.xcresults.heic;
+
+import io.eroshenkoam.xcresults.util.ExportMetrics;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Groups pending HEIC files into batches and converts them on a background thread.
+ * <p>
+ * Sources are deleted once their JPEG output exists, sources that were not converted are kept as is.
+ * Every added source gets a future that completes with the resulting file once its batch is processed.
+ * A batch that is not full is converted once its oldest source waited for {@code flushDelay},
+ * so results waiting for a conversion are not held until enough images arrive.
+ * At most {@code capacity} sources are pending or being converted, {@link #add} blocks until there is room.
+ */
+public class HeicConversionQueue implements AutoCloseable {
+
+    private final HeicConverter converter;
+    private final int batchSize;
+    private final Duration flushDelay;
+    private final Semaphore room;
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+
+    private final AtomicInteger converted = new AtomicInteger();
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+    private Map<Path, CompletableFuture<Path>> pending = new LinkedHashMap<>();
+
+    public HeicConversionQueue(final HeicConverter converter,
+                               final int batchSize,
+                               final int capacity,
+                               final Duration flushDelay) {
+        this.converter = converter;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushDelay = flushDelay;
+        this.room = new Semaphore(Math.max(this.batchSize, capacity));
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * @return future of the converted JPEG file, or of the source itself if it was not converted
+     */
+    public CompletableFuture<Path> add(final Path source) throws InterruptedException {
+        room.acquire();
+        final CompletableFuture<Path> result = new CompletableFuture<>();
+        final Map<Path, CompletableFuture<Path>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                final Map<Path, CompletableFuture<Path>> scheduled = pending;
+                executor.schedule(() -> flush(scheduled), flushDelay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            pending.put(source, result);
+            if (pending.size() < batchSize) {
+                return result;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        executor.execute(() -> convert(batch));
+        return result;
+    }
+
+    /**
+     * Converts the given batch if it is still pending, it may have been filled up and converted already.
+     */
+    private void flush(final Map<Path, CompletableFuture<Path>> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = new LinkedHashMap<>();
+        }
+        convert(batch);
+    }
+
+    private void convert(final Map<Path, CompletableFuture<Path>> batch) {
+        final long start = System.nanoTime();
+        try {
+            final Set<Path> produced = converter.convert(new ArrayList<>(batch.keySet()));
+            ExportMetrics.getDefault().record(ExportMetrics.PHASE_HEIC, start);
+            batch.forEach((source, result) -> {
+                if (produced.contains(source)) {
+                    FileUtils.deleteQuietly(source.toFile());
+                    converted.incrementAndGet();
+                    result.complete(getConvertedPath(source));
+                } else {
+                    failures.add(String.format("%s: no output produced", source.getFileName()));
+                    result.complete(source);
+                }
+            });
+        } catch (Exception e) {
+            batch.forEach((source, result) -> {
+                failures.add(String.format("%s: %s", source.getFileName(), e.getMessage()));
+                result.complete(source);
+            });
+        } finally {
+            room.release(batch.size());
+        }
+    }
+
+    private static Path getConvertedPath(final Path source) {
+        return source.resolveSibling(FilenameUtils.getBaseName(source.getFileName().toString()) + ".jpeg");
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        final Map<Path, CompletableFuture<Path>> batch;
+        synchronized (this) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+        }
+        if (!batch.isEmpty()) {
+            executor.execute(() -> convert(batch));
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        if (converted.get() > 0) {
+            System.out.printf("Converted %s HEIC attachments to JPEG%n", converted.get());
+        }
+        if (!failures.isEmpty()) {
+            System.out.printf("Failed to convert %s HEIC attachments:%n", failures.size());
+            failures.forEach(failure -> System.out.printf("  %s%n", failure));
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package io.eroshenkoam.xcresults.heic;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts HEIC images to JPEG files placed next to the sources ({@code name.heic -> name.jpeg}).
+ */
+public interface HeicConverter {
+
+    /**
+     * Converts a batch of images.
+     *
+     * @return sources that were converted successfully
+     */
+    Set<Path> convert(List<Path> sources) throws Exception;
+
+}
@@ -0,0 +1,79 @@
+package io.eroshenkoam.xcresults.heic;
+
+import io.eroshenkoam.xcresults.util.ProcessException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.eroshenkoam.xcresults.util.ProcessUtil.runProcess;
+
+/**
+ * Converts a whole batch with a single {@code sips} invocation.
+ * <p>
+ * Images are converted into a staging directory and moved next to their sources afterwards,
+ * so only outputs that actually exist are reported as converted.
+ */
+public class SipsHeicConverter implements HeicConverter {
+
+    private static final String DEFAULT_COMMAND = "sips";
+
+    private final String command;
+
+    public SipsHeicConverter() {
+        this(DEFAULT_COMMAND);
+    }
+
+    public SipsHeicConverter(final String command) {
+        this.command = command;
+    }
+
+    @Override
+    public Set<Path> convert(final List<Path> sources) throws IOException {
+        final Set<Path> converted = new HashSet<>();
+        if (sources.isEmpty()) {
+            return converted;
+        }
+        final Path staging = Files.createTempDirectory(sources.get(0).toAbsolutePath().getParent(), "sips");
+        try {
+            final List<String> arguments = new ArrayList<>();
+            arguments.add(command);
+            arguments.add("-s");
+            arguments.add("format");
+            arguments.add("jpeg");
+            sources.forEach(source -> arguments.add(source.toAbsolutePath().toString()));
+            arguments.add("--out");
+            arguments.add(staging.toAbsolutePath().toString());
+
+            try {
+                runProcess(new ProcessBuilder(arguments));
+            } catch (ProcessException e) {
+                // sips fails the whole batch if any image fails, converted images are still collected
+                System.out.printf("Can not convert some of HEIC attachments: %s%n", e.getMessage());
+            }
+
+            for (Path source : sources) {
+                final String baseName = FilenameUtils.getBaseName(source.toString());
+                final Path target = source.toAbsolutePath().getParent().resolve(baseName + ".jpeg");
+                for (Path candidate : List.of(staging.resolve(baseName + ".jpeg"), staging.resolve(source.getFileName()))) {
+                    if (Files.isRegularFile(candidate)) {
+                        Files.move(candidate, target, StandardCopyOption.REPLACE_EXISTING);
+                        converted.add(source);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            FileUtils.deleteQuietly(staging.toFile());
+        }
+        return converted;
+    }
+
+}
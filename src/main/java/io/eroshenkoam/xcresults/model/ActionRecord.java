@@ -0,0 +1,39 @@
+package io.eroshenkoam.xcresults.model;
+
+/**
+ * Single action (build, test run) of an invocation.
+ */
+public class ActionRecord {
+
+    private String runDestinationName;
+    private Long startedTime;
+    private String testsRefId;
+
+    public String getRunDestinationName() {
+        return runDestinationName;
+    }
+
+    public ActionRecord setRunDestinationName(final String runDestinationName) {
+        this.runDestinationName = runDestinationName;
+        return this;
+    }
+
+    public Long getStartedTime() {
+        return startedTime;
+    }
+
+    public ActionRecord setStartedTime(final Long startedTime) {
+        this.startedTime = startedTime;
+        return this;
+    }
+
+    public String getTestsRefId() {
+        return testsRefId;
+    }
+
+    public ActionRecord setTestsRefId(final String testsRefId) {
+        this.testsRefId = testsRefId;
+        return this;
+    }
+
+}
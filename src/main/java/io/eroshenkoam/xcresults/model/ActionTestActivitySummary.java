@@ -0,0 +1,92 @@
+package io.eroshenkoam.xcresults.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Activity (step) of a test.
+ */
+public class ActionTestActivitySummary {
+
+    private String title;
+    private String activityType;
+    private String uuid;
+    private Long start;
+    private Long finish;
+    private List<ActionTestAttachment> attachments = new ArrayList<>();
+    private List<ActionTestActivitySummary> subactivities = new ArrayList<>();
+    private List<String> failureSummaryIDs = new ArrayList<>();
+
+    public String getTitle() {
+        return title;
+    }
+
+    public ActionTestActivitySummary setTitle(final String title) {
+        this.title = title;
+        return this;
+    }
+
+    public String getActivityType() {
+        return activityType;
+    }
+
+    public ActionTestActivitySummary setActivityType(final String activityType) {
+        this.activityType = activityType;
+        return this;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public ActionTestActivitySummary setUuid(final String uuid) {
+        this.uuid = uuid;
+        return this;
+    }
+
+    public Long getStart() {
+        return start;
+    }
+
+    public ActionTestActivitySummary setStart(final Long start) {
+        this.start = start;
+        return this;
+    }
+
+    public Long getFinish() {
+        return finish;
+    }
+
+    public ActionTestActivitySummary setFinish(final Long finish) {
+        this.finish = finish;
+        return this;
+    }
+
+    public List<ActionTestAttachment> getAttachments() {
+        return attachments;
+    }
+
+    public ActionTestActivitySummary setAttachments(final List<ActionTestAttachment> attachments) {
+        this.attachments = attachments;
+        return this;
+    }
+
+    public List<ActionTestActivitySummary> getSubactivities() {
+        return subactivities;
+    }
+
+    public ActionTestActivitySummary setSubactivities(final List<ActionTestActivitySummary> subactivities) {
+        this.subactivities = subactivities;
+        return this;
+    }
+
+    public List<String> getFailureSummaryIDs() {
+        return failureSummaryIDs;
+    }
+
+    public ActionTestActivitySummary setFailureSummaryIDs(final List<String> failureSummaryIDs) {
+        this.failureSummaryIDs = failureSummaryIDs;
+        return this;
+    }
+
+}
@@ -0,0 +1,39 @@
+package io.eroshenkoam.xcresults.model;
+
+/**
+ * Attachment of an activity or failure.
+ */
+public class ActionTestAttachment {
+
+    private String filename;
+    private String uuid;
+    private String payloadRefId;
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public ActionTestAttachment setFilename(final String filename) {
+        this.filename = filename;
+        return this;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public ActionTestAttachment setUuid(final String uuid) {
+        this.uuid = uuid;
+        return this;
+    }
+
+    public String getPayloadRefId() {
+        return payloadRefId;
+    }
+
+    public ActionTestAttachment setPayloadRefId(final String payloadRefId) {
+        this.payloadRefId = payloadRefId;
+        return this;
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.eroshenkoam.xcresults.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test failure with its source location.
+ */
+public class ActionTestFailureSummary {
+
+    private String message;
+    private String uuid;
+    private Long timestamp;
+    private boolean topLevelFailure;
+    private List<String> callStack;
+    private List<ActionTestAttachment> attachments = new ArrayList<>();
+
+    public String getMessage() {
+        return message;
+    }
+
+    public ActionTestFailureSummary setMessage(final String message) {
+        this.message = message;
+        return this;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public ActionTestFailureSummary setUuid(final String uuid) {
+        this.uuid = uuid;
+        return this;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public ActionTestFailureSummary setTimestamp(final Long timestamp) {
+        this.timestamp = timestamp;
+        return this;
+    }
+
+    public boolean isTopLevelFailure() {
+        return topLevelFailure;
+    }
+
+    public ActionTestFailureSummary setTopLevelFailure(final boolean topLevelFailure) {
+        this.topLevelFailure = topLevelFailure;
+        return this;
+    }
+
+    /**
+     * Call stack frames formatted as {@code filePath:lineNumber}, {@code null} when the failure has no call stack.
+     */
+    public List<String> getCallStack() {
+        return callStack;
+    }
+
+    public ActionTestFailureSummary setCallStack(final List<String> callStack) {
+        this.callStack = callStack;
+        return this;
+    }
+
+    public List<ActionTestAttachment> getAttachments() {
+        return attachments;
+    }
+
+    public ActionTestFailureSummary setAttachments(final List<ActionTestAttachment> attachments) {
+        this.attachments = attachments;
+        return this;
+    }
+
+}
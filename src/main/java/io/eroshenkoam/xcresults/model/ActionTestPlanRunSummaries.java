@@ -0,0 +1,22 @@
+package io.eroshenkoam.xcresults.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test plan run summaries referenced by {@link ActionRecord#getTestsRefId()}.
+ */
+public class ActionTestPlanRunSummaries {
+
+    private List<ActionTestableSummary> testableSummaries = new ArrayList<>();
+
+    public List<ActionTestableSummary> getTestableSummaries() {
+        return testableSummaries;
+    }
+
+    public ActionTestPlanRunSummaries setTestableSummaries(final List<ActionTestableSummary> testableSummaries) {
+        this.testableSummaries = testableSummaries;
+        return this;
+    }
+
+}
@@ -0,0 +1,35 @@
+package io.eroshenkoam.xcresults.model;
+
+import java.util.Objects;
+
+/**
+ * Value of the {@code testStatus} field of a test summary.
+ */
+public enum ActionTestStatus {
+
+    SUCCESS("Success"),
+
+    EXPECTED_FAILURE("Expected Failure"),
+
+    FAILURE("Failure"),
+
+    SKIPPED("Skipped"),
+
+    UNKNOWN(null);
+
+    private final String value;
+
+    ActionTestStatus(final String value) {
+        this.value = value;
+    }
+
+    public static ActionTestStatus fromValue(final String value) {
+        for (ActionTestStatus status : values()) {
+            if (Objects.nonNull(status.value) && status.value.equals(value)) {
+                return status;
+            }
+        }
+        return UNKNOWN;
+    }
+
+}
@@ -0,0 +1,104 @@
+package io.eroshenkoam.xcresults.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test group, test metadata or full test summary.
+ * <p>
+ * Metadata nodes point to the full summary with {@link #getSummaryRefId()}.
+ */
+public class ActionTestSummary {
+
+    private String type;
+    private String name;
+    private String identifier;
+    private ActionTestStatus testStatus;
+    private Double duration;
+    private String summaryRefId;
+    private List<ActionTestSummary> subtests = new ArrayList<>();
+    private List<ActionTestActivitySummary> activitySummaries = new ArrayList<>();
+    private List<ActionTestFailureSummary> failureSummaries = new ArrayList<>();
+
+    public String getType() {
+        return type;
+    }
+
+    public ActionTestSummary setType(final String type) {
+        this.type = type;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ActionTestSummary setName(final String name) {
+        this.name = name;
+        return this;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    public ActionTestSummary setIdentifier(final String identifier) {
+        this.identifier = identifier;
+        return this;
+    }
+
+    public ActionTestStatus getTestStatus() {
+        return testStatus;
+    }
+
+    public ActionTestSummary setTestStatus(final ActionTestStatus testStatus) {
+        this.testStatus = testStatus;
+        return this;
+    }
+
+    public Double getDuration() {
+        return duration;
+    }
+
+    public ActionTestSummary setDuration(final Double duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public String getSummaryRefId() {
+        return summaryRefId;
+    }
+
+    public ActionTestSummary setSummaryRefId(final String summaryRefId) {
+        this.summaryRefId = summaryRefId;
+        return this;
+    }
+
+    public List<ActionTestSummary> getSubtests() {
+        return subtests;
+    }
+
+    public ActionTestSummary setSubtests(final List<ActionTestSummary> subtests) {
+        this.subtests = subtests;
+        return this;
+    }
+
+    public List<ActionTestActivitySummary> getActivitySummaries() {
+        return activitySummaries;
+    }
+
+    public ActionTestSummary setActivitySummaries(final List<ActionTestActivitySummary> activitySummaries) {
+        this.activitySummaries = activitySummaries;
+        return this;
+    }
+
+    public List<ActionTestFailureSummary> getFailureSummaries() {
+        return failureSummaries;
+    }
+
+    public ActionTestSummary setFailureSummaries(final List<ActionTestFailureSummary> failureSummaries) {
+        this.failureSummaries = failureSummaries;
+        return this;
+    }
+
+}
@@ -0,0 +1,41 @@
+package io.eroshenkoam.xcresults.model;
+
+import java.util.List;
+
+/**
+ * Tests of a single test target.
+ */
+public class ActionTestableSummary {
+
+    private String name;
+    private String targetName;
+    private List<ActionTestSummary> tests;
+
+    public String getName() {
+        return name;
+    }
+
+    public ActionTestableSummary setName(final String name) {
+        this.name = name;
+        return this;
+    }
+
+    public String getTargetName() {
+        return targetName;
+    }
+
+    public ActionTestableSummary setTargetName(final String targetName) {
+        this.targetName = targetName;
+        return this;
+    }
+
+    public List<ActionTestSummary> getTests() {
+        return tests;
+    }
+
+    public ActionTestableSummary setTests(final List<ActionTestSummary> tests) {
+        this.tests = tests;
+        return this;
+    }
+
+}
@@ -0,0 +1,22 @@
+package io.eroshenkoam.xcresults.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Top level record of an xcresult bundle.
+ */
+public class ActionsInvocationRecord {
+
+    private List<ActionRecord> actions = new ArrayList<>();
+
+    public List<ActionRecord> getActions() {
+        return actions;
+    }
+
+    public ActionsInvocationRecord setActions(final List<ActionRecord> actions) {
+        this.actions = actions;
+        return this;
+    }
+
+}
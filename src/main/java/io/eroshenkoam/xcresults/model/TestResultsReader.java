@@ -0,0 +1,443 @@
+package io.eroshenkoam.xcresults.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import static io.eroshenkoam.xcresults.model.XcResultReader.isObject;
+import static io.eroshenkoam.xcresults.model.XcResultReader.nextField;
+
+/**
+ * Streaming readers for the output of {@code xcresulttool get test-results} (Xcode 16).
+ * <p>
+ * Values are mapped to the same model as the legacy object graph: test bundles become testable
+ * summaries, test cases become {@value #TEST_METADATA} summaries carrying their failure messages,
+ * and test runs (devices, configurations, repetitions) become {@value #TEST_RUN} subtests of a test case.
+ */
+public final class TestResultsReader {
+
+    public static final String TEST_METADATA = "ActionTestMetadata";
+    public static final String TEST_RUN = "ActionTestRun";
+
+    /**
+     * Activity type of activities associated with a failure, all other activities have no type.
+     */
+    public static final String ASSERTION_FAILURE = "com.apple.dt.xctest.activity-type.testAssertionFailure";
+
+    private static final String TEST_GROUP = "ActionTestSummaryGroup";
+
+    private static final String UNIT_TEST_BUNDLE = "Unit test bundle";
+    private static final String UI_TEST_BUNDLE = "UI test bundle";
+    private static final String TEST_SUITE = "Test Suite";
+    private static final String TEST_CASE = "Test Case";
+    private static final String FAILURE_MESSAGE = "Failure Message";
+    private static final List<String> TEST_RUN_TYPES = List.of(
+            "Device", "Test Plan Configuration", "Arguments", "Repetition"
+    );
+
+    private static final Map<String, Double> UNIT_SECONDS = Map.of("h", 3600.0, "m", 60.0, "s", 1.0, "ms", 0.001);
+
+    private static final String START_TIME = "startTime";
+    private static final String DEVICES_AND_CONFIGURATIONS = "devicesAndConfigurations";
+    private static final String DEVICE = "device";
+    private static final String DEVICE_NAME = "deviceName";
+
+    private static final String TEST_NODES = "testNodes";
+    private static final String NAME = "name";
+    private static final String NODE_TYPE = "nodeType";
+    private static final String NODE_IDENTIFIER = "nodeIdentifier";
+    private static final String RESULT = "result";
+    private static final String DURATION = "duration";
+    private static final String DURATION_IN_SECONDS = "durationInSeconds";
+    private static final String CHILDREN = "children";
+
+    private static final String TEST_RUNS = "testRuns";
+    private static final String ACTIVITIES = "activities";
+    private static final String TITLE = "title";
+    private static final String ATTACHMENTS = "attachments";
+    private static final String CHILD_ACTIVITIES = "childActivities";
+    private static final String IS_ASSOCIATED_WITH_FAILURE = "isAssociatedWithFailure";
+    private static final String PAYLOAD_ID = "payloadId";
+    private static final String UUID_FIELD = "uuid";
+
+    private TestResultsReader() {
+    }
+
+    /**
+     * Reads {@code get test-results summary}, the run destination is only set for a single device.
+     */
+    public static ActionRecord readSummary(final JsonParser parser) throws IOException {
+        final ActionRecord action = new ActionRecord();
+        if (!isObject(parser)) {
+            return action;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (START_TIME.equals(field)) {
+                action.setStartedTime(readTime(parser));
+            } else if (DEVICES_AND_CONFIGURATIONS.equals(field)) {
+                final List<String> devices = readArray(parser, TestResultsReader::readDeviceConfiguration);
+                if (devices.size() == 1) {
+                    action.setRunDestinationName(devices.get(0));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return action;
+    }
+
+    /**
+     * Reads {@code get test-results tests}.
+     */
+    public static ActionTestPlanRunSummaries readTests(final JsonParser parser) throws IOException {
+        final ActionTestPlanRunSummaries summaries = new ActionTestPlanRunSummaries();
+        if (!isObject(parser)) {
+            return summaries;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (TEST_NODES.equals(field)) {
+                addTestables(readArray(parser, TestResultsReader::readTestNode), summaries.getTestableSummaries());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Reads {@code get test-results activities}, one entry per test run.
+     */
+    public static List<TestRunActivities> readActivities(final JsonParser parser) throws IOException {
+        List<TestRunActivities> runs = Collections.emptyList();
+        if (!isObject(parser)) {
+            return runs;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (TEST_RUNS.equals(field)) {
+                runs = readArray(parser, TestResultsReader::readTestRun);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return runs;
+    }
+
+    private static void addTestables(final List<ActionTestSummary> nodes, final List<ActionTestableSummary> testables) {
+        for (ActionTestSummary node : nodes) {
+            if (UNIT_TEST_BUNDLE.equals(node.getType()) || UI_TEST_BUNDLE.equals(node.getType())) {
+                testables.add(new ActionTestableSummary()
+                        .setName(node.getName())
+                        .setTargetName(node.getName())
+                        .setTests(node.getSubtests()));
+            } else {
+                addTestables(node.getSubtests(), testables);
+            }
+        }
+    }
+
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private static ActionTestSummary readTestNode(final JsonParser parser) throws IOException {
+        final ActionTestSummary node = new ActionTestSummary();
+        if (!isObject(parser)) {
+            return node;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case NAME:
+                    node.setName(parser.getValueAsString());
+                    break;
+                case NODE_TYPE:
+                    node.setType(getType(parser.getValueAsString()));
+                    break;
+                case NODE_IDENTIFIER:
+                    node.setIdentifier(parser.getValueAsString());
+                    break;
+                case RESULT:
+                    node.setTestStatus(getTestStatus(parser.getValueAsString()));
+                    break;
+                case DURATION:
+                    if (Objects.isNull(node.getDuration())) {
+                        node.setDuration(parseDuration(parser.getValueAsString()));
+                    }
+                    break;
+                case DURATION_IN_SECONDS:
+                    node.setDuration(parser.getValueAsDouble());
+                    break;
+                case CHILDREN:
+                    for (ActionTestSummary child : readArray(parser, TestResultsReader::readTestNode)) {
+                        if (FAILURE_MESSAGE.equals(child.getType())) {
+                            node.getFailureSummaries().add(getFailure(child.getName()));
+                        } else if (Objects.nonNull(child.getType())) {
+                            node.getSubtests().add(child);
+                        }
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return node;
+    }
+
+    private static TestRunActivities readTestRun(final JsonParser parser) throws IOException {
+        final TestRunActivities run = new TestRunActivities();
+        if (!isObject(parser)) {
+            return run;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (DEVICE.equals(field)) {
+                run.setDeviceName(readTextField(parser, DEVICE_NAME));
+            } else if (ACTIVITIES.equals(field)) {
+                run.setActivities(readArray(parser, TestResultsReader::readActivity));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        setFinish(run.getActivities(), getLatestStart(run.getActivities(), null));
+        return run;
+    }
+
+    private static ActionTestActivitySummary readActivity(final JsonParser parser) throws IOException {
+        final ActionTestActivitySummary activity = new ActionTestActivitySummary();
+        if (!isObject(parser)) {
+            return activity;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case TITLE:
+                    activity.setTitle(parser.getValueAsString());
+                    break;
+                case START_TIME:
+                    activity.setStart(readTime(parser));
+                    break;
+                case ATTACHMENTS:
+                    activity.setAttachments(readArray(parser, TestResultsReader::readAttachment));
+                    break;
+                case CHILD_ACTIVITIES:
+                    activity.setSubactivities(readArray(parser, TestResultsReader::readActivity));
+                    break;
+                case IS_ASSOCIATED_WITH_FAILURE:
+                    if (parser.getValueAsBoolean()) {
+                        activity.setActivityType(ASSERTION_FAILURE);
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return activity;
+    }
+
+    private static ActionTestAttachment readAttachment(final JsonParser parser) throws IOException {
+        final ActionTestAttachment attachment = new ActionTestAttachment();
+        if (!isObject(parser)) {
+            return attachment;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case NAME:
+                    attachment.setFilename(parser.getValueAsString());
+                    break;
+                case UUID_FIELD:
+                    attachment.setUuid(parser.getValueAsString());
+                    break;
+                case PAYLOAD_ID:
+                    attachment.setPayloadRefId(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return attachment;
+    }
+
+    private static String readDeviceConfiguration(final JsonParser parser) throws IOException {
+        String deviceName = null;
+        if (!isObject(parser)) {
+            return null;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (DEVICE.equals(field)) {
+                deviceName = readTextField(parser, DEVICE_NAME);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return deviceName;
+    }
+
+    private static String readTextField(final JsonParser parser, final String name) throws IOException {
+        String value = null;
+        if (!isObject(parser)) {
+            return null;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (name.equals(field) && parser.getCurrentToken().isScalarValue()) {
+                value = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    private static <T> List<T> readArray(final JsonParser parser,
+                                         final XcResultReader.ValueReader<T> reader) throws IOException {
+        final List<T> values = new ArrayList<>();
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(reader.read(parser));
+        }
+        return values;
+    }
+
+    /**
+     * Times are seconds since epoch with a fractional part.
+     */
+    private static Long readTime(final JsonParser parser) throws IOException {
+        if (!parser.getCurrentToken().isNumeric()) {
+            parser.skipChildren();
+            return null;
+        }
+        return Math.round(parser.getValueAsDouble() * 1000);
+    }
+
+    /**
+     * Activities only have a start time, so every activity is assumed to last until the next one starts.
+     * The last activity of a level ends with its parent, the last top level activity ends
+     * with the latest start time found in the run.
+     */
+    private static void setFinish(final List<ActionTestActivitySummary> activities, final Long end) {
+        for (int i = 0; i < activities.size(); i++) {
+            final ActionTestActivitySummary activity = activities.get(i);
+            Long finish = i + 1 < activities.size() ? activities.get(i + 1).getStart() : end;
+            if (Objects.isNull(finish) || Objects.nonNull(activity.getStart()) && finish < activity.getStart()) {
+                finish = activity.getStart();
+            }
+            activity.setFinish(finish);
+            setFinish(activity.getSubactivities(), finish);
+        }
+    }
+
+    private static Long getLatestStart(final List<ActionTestActivitySummary> activities, final Long latest) {
+        Long result = latest;
+        for (ActionTestActivitySummary activity : activities) {
+            if (Objects.nonNull(activity.getStart()) && (Objects.isNull(result) || activity.getStart() > result)) {
+                result = activity.getStart();
+            }
+            result = getLatestStart(activity.getSubactivities(), result);
+        }
+        return result;
+    }
+
+    /**
+     * Failure messages are formatted as {@code <file>:<line>: <message>}, the location becomes the call stack.
+     */
+    private static ActionTestFailureSummary getFailure(final String text) {
+        final ActionTestFailureSummary failure = new ActionTestFailureSummary()
+                .setUuid(UUID.randomUUID().toString())
+                .setMessage(text);
+        if (Objects.isNull(text)) {
+            return failure;
+        }
+        final int separator = text.indexOf(": ");
+        final int line = separator > 0 ? text.lastIndexOf(':', separator - 1) : -1;
+        if (line > 0 && isDigits(text, line + 1, separator)) {
+            failure.setMessage(text.substring(separator + 2));
+            failure.setCallStack(Collections.singletonList(text.substring(0, separator)));
+        }
+        return failure;
+    }
+
+    private static boolean isDigits(final String text, final int start, final int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getType(final String nodeType) {
+        if (Objects.isNull(nodeType)) {
+            return null;
+        }
+        switch (nodeType) {
+            case TEST_SUITE:
+                return TEST_GROUP;
+            case TEST_CASE:
+                return TEST_METADATA;
+            case UNIT_TEST_BUNDLE:
+            case UI_TEST_BUNDLE:
+            case FAILURE_MESSAGE:
+                return nodeType;
+            default:
+                return TEST_RUN_TYPES.contains(nodeType) ? TEST_RUN : nodeType.intern();
+        }
+    }
+
+    private static ActionTestStatus getTestStatus(final String result) {
+        if (Objects.isNull(result)) {
+            return ActionTestStatus.UNKNOWN;
+        }
+        switch (result) {
+            case "Passed":
+                return ActionTestStatus.SUCCESS;
+            case "Failed":
+                return ActionTestStatus.FAILURE;
+            case "Skipped":
+                return ActionTestStatus.SKIPPED;
+            case "Expected Failure":
+                return ActionTestStatus.EXPECTED_FAILURE;
+            default:
+                return ActionTestStatus.UNKNOWN;
+        }
+    }
+
+    /**
+     * Durations are formatted for humans, e.g. {@code 0.35s}, {@code 150ms}, {@code 1m 5s} or {@code 2,5s} in some locales.
+     */
+    private static Double parseDuration(final String duration) {
+        if (Objects.isNull(duration)) {
+            return null;
+        }
+        double seconds = 0;
+        for (String part : duration.trim().split("\\s+")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            final String unit = part.replaceFirst("^[0-9.,]+", "");
+            final double multiplier = UNIT_SECONDS.getOrDefault(unit, 1.0);
+            final String value = part.substring(0, part.length() - unit.length());
+            try {
+                seconds += Double.parseDouble(value.replace(',', '.')) * multiplier;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return seconds;
+    }
+
+}
@@ -0,0 +1,32 @@
+package io.eroshenkoam.xcresults.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Activities of a single run of a test, read with {@code xcresulttool get test-results activities}.
+ */
+public class TestRunActivities {
+
+    private String deviceName;
+    private List<ActionTestActivitySummary> activities = new ArrayList<>();
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public TestRunActivities setDeviceName(final String deviceName) {
+        this.deviceName = deviceName;
+        return this;
+    }
+
+    public List<ActionTestActivitySummary> getActivities() {
+        return activities;
+    }
+
+    public TestRunActivities setActivities(final List<ActionTestActivitySummary> activities) {
+        this.activities = activities;
+        return this;
+    }
+
+}
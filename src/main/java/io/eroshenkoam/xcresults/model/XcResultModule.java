@@ -0,0 +1,31 @@
+package io.eroshenkoam.xcresults.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+
+/**
+ * Registers xcresult model deserializers, use with {@code mapper.registerModule(new XcResultModule())}.
+ */
+public class XcResultModule extends SimpleModule {
+
+    public XcResultModule() {
+        super("xcresult");
+        addDeserializer(ActionsInvocationRecord.class, deserializer(XcResultReader::readInvocationRecord));
+        addDeserializer(ActionTestPlanRunSummaries.class, deserializer(XcResultReader::readTestPlanRunSummaries));
+        addDeserializer(ActionTestSummary.class, deserializer(XcResultReader::readTestSummary));
+    }
+
+    private static <T> JsonDeserializer<T> deserializer(final XcResultReader.ValueReader<T> reader) {
+        return new JsonDeserializer<T>() {
+            @Override
+            public T deserialize(final JsonParser parser, final DeserializationContext context) throws IOException {
+                return reader.read(parser);
+            }
+        };
+    }
+
+}
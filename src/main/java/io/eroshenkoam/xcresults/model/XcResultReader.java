@@ -0,0 +1,506 @@
+package io.eroshenkoam.xcresults.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static io.eroshenkoam.xcresults.util.FormatUtil.parseDate;
+
+/**
+ * Streaming readers for xcresult objects.
+ * <p>
+ * Values are unwrapped from their {@code _type}/{@code _value} envelopes while parsing,
+ * fields that are not part of the model are skipped without being materialized.
+ */
+public final class XcResultReader {
+
+    private static final String TYPE = "_type";
+    private static final String TYPE_NAME = "_name";
+    private static final String VALUE = "_value";
+    private static final String VALUES = "_values";
+    private static final String ID = "id";
+
+    private static final String ACTIONS = "actions";
+    private static final String ACTION_RESULT = "actionResult";
+    private static final String RUN_DESTINATION = "runDestination";
+    private static final String DISPLAY_NAME = "displayName";
+    private static final String START_TIME = "startedTime";
+    private static final String TEST_REF = "testsRef";
+
+    private static final String SUMMARIES = "summaries";
+    private static final String TESTABLE_SUMMARIES = "testableSummaries";
+    private static final String TARGET_NAME = "targetName";
+    private static final String TESTS = "tests";
+
+    private static final String NAME = "name";
+    private static final String IDENTIFIER = "identifier";
+    private static final String STATUS = "testStatus";
+    private static final String DURATION = "duration";
+    private static final String SUMMARY_REF = "summaryRef";
+    private static final String SUBTESTS = "subtests";
+    private static final String ACTIVITY_SUMMARIES = "activitySummaries";
+    private static final String FAILURE_SUMMARIES = "failureSummaries";
+
+    private static final String TITLE = "title";
+    private static final String ACTIVITY_TYPE = "activityType";
+    private static final String UUID = "uuid";
+    private static final String START = "start";
+    private static final String FINISH = "finish";
+    private static final String ATTACHMENTS = "attachments";
+    private static final String SUBACTIVITIES = "subactivities";
+    private static final String FAILURE_SUMMARY_IDS = "failureSummaryIDs";
+
+    private static final String MESSAGE = "message";
+    private static final String TIMESTAMP = "timestamp";
+    private static final String IS_TOP_LEVEL = "isTopLevelFailure";
+    private static final String SOURCE_CODE_CONTEXT = "sourceCodeContext";
+    private static final String CALL_STACK = "callStack";
+    private static final String SYMBOL_INFO = "symbolInfo";
+    private static final String LOCATION = "location";
+    private static final String FILE_PATH = "filePath";
+    private static final String LINE_NUMBER = "lineNumber";
+
+    private static final String FILENAME = "filename";
+    private static final String PAYLOAD_REF = "payloadRef";
+
+    private XcResultReader() {
+    }
+
+    public static ActionsInvocationRecord readInvocationRecord(final JsonParser parser) throws IOException {
+        final ActionsInvocationRecord record = new ActionsInvocationRecord();
+        if (!isObject(parser)) {
+            return record;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (ACTIONS.equals(field)) {
+                record.setActions(readList(parser, XcResultReader::readActionRecord));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return record;
+    }
+
+    public static ActionTestPlanRunSummaries readTestPlanRunSummaries(final JsonParser parser) throws IOException {
+        final ActionTestPlanRunSummaries summaries = new ActionTestPlanRunSummaries();
+        if (!isObject(parser)) {
+            return summaries;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (SUMMARIES.equals(field)) {
+                for (List<ActionTestableSummary> testables : readList(parser, XcResultReader::readTestableSummaries)) {
+                    summaries.getTestableSummaries().addAll(testables);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return summaries;
+    }
+
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    public static ActionTestSummary readTestSummary(final JsonParser parser) throws IOException {
+        final ActionTestSummary summary = new ActionTestSummary();
+        if (!isObject(parser)) {
+            return summary;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case TYPE:
+                    summary.setType(readTypeName(parser));
+                    break;
+                case NAME:
+                    summary.setName(readString(parser));
+                    break;
+                case IDENTIFIER:
+                    summary.setIdentifier(readString(parser));
+                    break;
+                case STATUS:
+                    summary.setTestStatus(ActionTestStatus.fromValue(readString(parser)));
+                    break;
+                case DURATION:
+                    summary.setDuration(parseDouble(readString(parser)));
+                    break;
+                case SUMMARY_REF:
+                    summary.setSummaryRefId(readReferenceId(parser));
+                    break;
+                case SUBTESTS:
+                    summary.setSubtests(readList(parser, XcResultReader::readTestSummary));
+                    break;
+                case ACTIVITY_SUMMARIES:
+                    summary.setActivitySummaries(readList(parser, XcResultReader::readActivitySummary));
+                    break;
+                case FAILURE_SUMMARIES:
+                    summary.setFailureSummaries(readList(parser, XcResultReader::readFailureSummary));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return summary;
+    }
+
+    private static ActionRecord readActionRecord(final JsonParser parser) throws IOException {
+        final ActionRecord action = new ActionRecord();
+        if (!isObject(parser)) {
+            return action;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case RUN_DESTINATION:
+                    action.setRunDestinationName(readStringField(parser, DISPLAY_NAME));
+                    break;
+                case START_TIME:
+                    action.setStartedTime(readDate(parser));
+                    break;
+                case ACTION_RESULT:
+                    action.setTestsRefId(readReferenceField(parser, TEST_REF));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return action;
+    }
+
+    private static List<ActionTestableSummary> readTestableSummaries(final JsonParser parser) throws IOException {
+        final List<ActionTestableSummary> testables = new ArrayList<>();
+        if (!isObject(parser)) {
+            return testables;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (TESTABLE_SUMMARIES.equals(field)) {
+                testables.addAll(readList(parser, XcResultReader::readTestableSummary));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return testables;
+    }
+
+    private static ActionTestableSummary readTestableSummary(final JsonParser parser) throws IOException {
+        final ActionTestableSummary testable = new ActionTestableSummary();
+        if (!isObject(parser)) {
+            return testable;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case NAME:
+                    testable.setName(readString(parser));
+                    break;
+                case TARGET_NAME:
+                    testable.setTargetName(readString(parser));
+                    break;
+                case TESTS:
+                    testable.setTests(readList(parser, XcResultReader::readTestSummary));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return testable;
+    }
+
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private static ActionTestActivitySummary readActivitySummary(final JsonParser parser) throws IOException {
+        final ActionTestActivitySummary activity = new ActionTestActivitySummary();
+        if (!isObject(parser)) {
+            return activity;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case TITLE:
+                    activity.setTitle(readString(parser));
+                    break;
+                case ACTIVITY_TYPE:
+                    activity.setActivityType(intern(readString(parser)));
+                    break;
+                case UUID:
+                    activity.setUuid(readString(parser));
+                    break;
+                case START:
+                    activity.setStart(readDate(parser));
+                    break;
+                case FINISH:
+                    activity.setFinish(readDate(parser));
+                    break;
+                case ATTACHMENTS:
+                    activity.setAttachments(readList(parser, XcResultReader::readAttachment));
+                    break;
+                case SUBACTIVITIES:
+                    activity.setSubactivities(readList(parser, XcResultReader::readActivitySummary));
+                    break;
+                case FAILURE_SUMMARY_IDS:
+                    activity.setFailureSummaryIDs(readList(parser, XcResultReader::readString));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return activity;
+    }
+
+    private static ActionTestFailureSummary readFailureSummary(final JsonParser parser) throws IOException {
+        final ActionTestFailureSummary failure = new ActionTestFailureSummary();
+        if (!isObject(parser)) {
+            return failure;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case MESSAGE:
+                    failure.setMessage(readString(parser));
+                    break;
+                case UUID:
+                    failure.setUuid(readString(parser));
+                    break;
+                case TIMESTAMP:
+                    failure.setTimestamp(readDate(parser));
+                    break;
+                case IS_TOP_LEVEL:
+                    failure.setTopLevelFailure(Boolean.parseBoolean(readString(parser)));
+                    break;
+                case SOURCE_CODE_CONTEXT:
+                    failure.setCallStack(readCallStack(parser));
+                    break;
+                case ATTACHMENTS:
+                    failure.setAttachments(readList(parser, XcResultReader::readAttachment));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return failure;
+    }
+
+    private static ActionTestAttachment readAttachment(final JsonParser parser) throws IOException {
+        final ActionTestAttachment attachment = new ActionTestAttachment();
+        if (!isObject(parser)) {
+            return attachment;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            switch (field) {
+                case FILENAME:
+                    attachment.setFilename(readString(parser));
+                    break;
+                case UUID:
+                    attachment.setUuid(readString(parser));
+                    break;
+                case PAYLOAD_REF:
+                    attachment.setPayloadRefId(readReferenceId(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return attachment;
+    }
+
+    private static List<String> readCallStack(final JsonParser parser) throws IOException {
+        List<String> callStack = null;
+        if (!isObject(parser)) {
+            return null;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (CALL_STACK.equals(field)) {
+                callStack = readList(parser, XcResultReader::readFrameLocation);
+                callStack.removeIf(Objects::isNull);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return callStack;
+    }
+
+    private static String readFrameLocation(final JsonParser parser) throws IOException {
+        String location = null;
+        if (!isObject(parser)) {
+            return null;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (SYMBOL_INFO.equals(field) && isObject(parser)) {
+                while (Objects.nonNull(field = nextField(parser))) {
+                    if (LOCATION.equals(field)) {
+                        location = readLocation(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return location;
+    }
+
+    private static String readLocation(final JsonParser parser) throws IOException {
+        String filePath = null;
+        String lineNumber = null;
+        if (!isObject(parser)) {
+            return null;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (FILE_PATH.equals(field)) {
+                filePath = readString(parser);
+            } else if (LINE_NUMBER.equals(field)) {
+                lineNumber = readString(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (Objects.isNull(filePath) || Objects.isNull(lineNumber)) {
+            return null;
+        }
+        return String.format("%s:%s", filePath, lineNumber);
+    }
+
+    private static String readTypeName(final JsonParser parser) throws IOException {
+        return intern(readStringField(parser, TYPE_NAME));
+    }
+
+    private static String readReferenceId(final JsonParser parser) throws IOException {
+        return readReferenceField(parser, null);
+    }
+
+    /**
+     * Reads {@code id} of the reference stored in {@code field}, or of the current object if field is {@code null}.
+     */
+    private static String readReferenceField(final JsonParser parser, final String field) throws IOException {
+        String id = null;
+        if (!isObject(parser)) {
+            return null;
+        }
+        String name;
+        while (Objects.nonNull(name = nextField(parser))) {
+            if (Objects.isNull(field) && ID.equals(name)) {
+                id = readString(parser);
+            } else if (Objects.nonNull(field) && field.equals(name)) {
+                id = readReferenceField(parser, null);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Reads a raw (not wrapped) string field of the current object.
+     */
+    private static String readStringField(final JsonParser parser, final String field) throws IOException {
+        String value = null;
+        if (!isObject(parser)) {
+            return null;
+        }
+        String name;
+        while (Objects.nonNull(name = nextField(parser))) {
+            if (field.equals(name) && parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+                value = parser.getText();
+            } else if (field.equals(name)) {
+                value = readString(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Unwraps {@code {"_type": ..., "_value": "..."}}.
+     */
+    private static String readString(final JsonParser parser) throws IOException {
+        String value = null;
+        if (!isObject(parser)) {
+            return null;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (VALUE.equals(field) && parser.getCurrentToken().isScalarValue()) {
+                value = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Unwraps {@code {"_type": ..., "_values": [...]}}.
+     */
+    private static <T> List<T> readList(final JsonParser parser, final ValueReader<T> reader) throws IOException {
+        final List<T> values = new ArrayList<>();
+        if (!isObject(parser)) {
+            return values;
+        }
+        String field;
+        while (Objects.nonNull(field = nextField(parser))) {
+            if (VALUES.equals(field) && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    values.add(reader.read(parser));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private static Long readDate(final JsonParser parser) throws IOException {
+        final String value = readString(parser);
+        return Objects.isNull(value) ? null : parseDate(value);
+    }
+
+    private static Double parseDouble(final String value) {
+        try {
+            return Objects.isNull(value) ? null : Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+    }
+
+    private static String intern(final String value) {
+        return Objects.isNull(value) ? null : value.intern();
+    }
+
+    static boolean isObject(final JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            return true;
+        }
+        parser.skipChildren();
+        return false;
+    }
+
+    /**
+     * Moves to the value of the next field of the current object.
+     *
+     * @return field name or {@code null} at the end of the object
+     */
+    static String nextField(final JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return null;
+        }
+        final String name = parser.getCurrentName();
+        parser.nextToken();
+        return name;
+    }
+
+    @FunctionalInterface
+    public interface ValueReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+}
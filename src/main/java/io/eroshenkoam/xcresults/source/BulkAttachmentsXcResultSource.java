@@ -0,0 +1,129 @@
+package io.eroshenkoam.xcresults.source;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exports all attachments of the bundle with a single {@code xcresulttool export attachments} call.
+ * <p>
+ * The bulk export runs into the staging directory on the first attachment request, files listed
+ * in {@code manifest.json} are then moved to the requested output by attachment id. Exported files
+ * are named by the id of their attachment, a file whose name is not an attachment id is never matched.
+ * Payloads without an attachment id, missing from the manifest, or all of them if the bulk export fails,
+ * are exported one by one.
+ */
+public class BulkAttachmentsXcResultSource implements XcResultSource {
+
+    private static final String MANIFEST = "manifest.json";
+    private static final String ATTACHMENTS = "attachments";
+    private static final String EXPORTED_FILE_NAME = "exportedFileName";
+
+    private final XcResultToolSource delegate;
+    private final Path stagingPath;
+
+    private Map<UUID, Path> staged;
+
+    public BulkAttachmentsXcResultSource(final XcResultToolSource delegate, final Path stagingPath) {
+        this.delegate = delegate;
+        this.stagingPath = stagingPath;
+    }
+
+    @Override
+    public <T> T readSummary(final ThrowableFunction<InputStream, T> reader) {
+        return delegate.readSummary(reader);
+    }
+
+    @Override
+    public <T> T readReference(final String id, final ThrowableFunction<InputStream, T> reader) {
+        return delegate.readReference(id, reader);
+    }
+
+    @Override
+    public void exportReference(final String id, final String attachmentId, final Path output) {
+        final UUID key = getAttachmentId(attachmentId);
+        final Path file = Objects.nonNull(key) ? getStaged().remove(key) : null;
+        if (Objects.isNull(file)) {
+            delegate.exportReference(id, attachmentId, output);
+            return;
+        }
+        try {
+            Files.move(file, output, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean hasTestResults() {
+        return delegate.hasTestResults();
+    }
+
+    @Override
+    public <T> T readTestResults(final TestResultsCommand command,
+                                 final String testId,
+                                 final ThrowableFunction<InputStream, T> reader) {
+        return delegate.readTestResults(command, testId, reader);
+    }
+
+    private synchronized Map<UUID, Path> getStaged() {
+        if (Objects.isNull(staged)) {
+            staged = new ConcurrentHashMap<>();
+            try {
+                Files.createDirectories(stagingPath);
+                delegate.exportAttachments(stagingPath);
+                readManifest(stagingPath.resolve(MANIFEST));
+                System.out.printf("Exported %s attachments in bulk%n", staged.size());
+            } catch (Exception e) {
+                System.out.printf("Can not export attachments in bulk, exporting one by one: %s%n", e.getMessage());
+            }
+        }
+        return staged;
+    }
+
+    /**
+     * Manifest lists exported files by test, files are named by the attachment id.
+     */
+    private void readManifest(final Path manifest) throws IOException {
+        final JsonNode tests = new ObjectMapper().readTree(manifest.toFile());
+        for (JsonNode test : tests) {
+            for (JsonNode attachment : test.path(ATTACHMENTS)) {
+                final String fileName = attachment.path(EXPORTED_FILE_NAME).asText(null);
+                if (Objects.isNull(fileName)) {
+                    continue;
+                }
+                final UUID attachmentId = getAttachmentId(FilenameUtils.getBaseName(fileName));
+                final Path file = stagingPath.resolve(fileName);
+                if (Objects.nonNull(attachmentId) && Files.isRegularFile(file)) {
+                    staged.put(attachmentId, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Attachment ids are UUIDs, compared by value since the case of file names and activities may differ.
+     */
+    private static UUID getAttachmentId(final String value) {
+        if (Objects.isNull(value)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+}
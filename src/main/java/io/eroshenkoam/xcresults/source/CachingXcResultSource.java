@@ -0,0 +1,103 @@
+package io.eroshenkoam.xcresults.source;
+
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+
+import static io.eroshenkoam.xcresults.source.ReplayXcResultSource.getPayloadPath;
+import static io.eroshenkoam.xcresults.source.ReplayXcResultSource.getReferencePath;
+import static io.eroshenkoam.xcresults.source.ReplayXcResultSource.getTestResultsPath;
+
+/**
+ * Serves references and payloads from a {@link ReferenceCache}, reading through to the delegate on miss.
+ */
+public class CachingXcResultSource implements XcResultSource {
+
+    private final XcResultSource delegate;
+    private final ReferenceCache cache;
+    private final Path bundlePath;
+
+    public CachingXcResultSource(final XcResultSource delegate, final ReferenceCache cache, final String bundleKey) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.bundlePath = cache.getBundlePath(bundleKey);
+    }
+
+    @Override
+    public <T> T readSummary(final ThrowableFunction<InputStream, T> reader) {
+        final Path entry = bundlePath.resolve(ReplayXcResultSource.SUMMARY);
+        final InputStream cached = cache.open(entry);
+        if (Objects.nonNull(cached)) {
+            return read(cached, reader);
+        }
+        return delegate.readSummary(input -> store(input, entry, reader));
+    }
+
+    @Override
+    public <T> T readReference(final String id, final ThrowableFunction<InputStream, T> reader) {
+        final Path entry = getReferencePath(bundlePath, id);
+        final InputStream cached = cache.open(entry);
+        if (Objects.nonNull(cached)) {
+            return read(cached, reader);
+        }
+        return delegate.readReference(id, input -> store(input, entry, reader));
+    }
+
+    @Override
+    public void exportReference(final String id, final String attachmentId, final Path output) {
+        final Path entry = getPayloadPath(bundlePath, id);
+        try (InputStream cached = cache.open(entry)) {
+            if (Objects.nonNull(cached)) {
+                Files.copy(cached, output, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+            delegate.exportReference(id, attachmentId, output);
+            final Path temp = cache.createTempFile(entry);
+            Files.copy(output, temp, StandardCopyOption.REPLACE_EXISTING);
+            cache.store(temp, entry);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean hasTestResults() {
+        return delegate.hasTestResults();
+    }
+
+    @Override
+    public <T> T readTestResults(final TestResultsCommand command,
+                                 final String testId,
+                                 final ThrowableFunction<InputStream, T> reader) {
+        final Path entry = getTestResultsPath(bundlePath, command, testId);
+        final InputStream cached = cache.open(entry);
+        if (Objects.nonNull(cached)) {
+            return read(cached, reader);
+        }
+        return delegate.readTestResults(command, testId, input -> store(input, entry, reader));
+    }
+
+    private <T> T store(final InputStream input,
+                        final Path entry,
+                        final ThrowableFunction<InputStream, T> reader) throws IOException {
+        final Path temp = cache.createTempFile(entry);
+        Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+        try (InputStream cached = cache.storeAndOpen(temp, entry)) {
+            return reader.apply(cached);
+        }
+    }
+
+    private static <T> T read(final InputStream cached, final ThrowableFunction<InputStream, T> reader) {
+        try (InputStream input = cached) {
+            return reader.apply(input);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
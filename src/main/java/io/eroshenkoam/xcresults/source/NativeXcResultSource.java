@@ -0,0 +1,64 @@
+package io.eroshenkoam.xcresults.source;
+
+import io.eroshenkoam.xcresults.bundle.XcResultBundle;
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Reads attachment payloads straight from the bundle {@code Data} directory.
+ * <p>
+ * Payloads are decompressed while streaming to the output file, no process is started.
+ * The typed object graph is not publicly documented, so summaries and references are still
+ * read through the fallback source.
+ */
+public class NativeXcResultSource implements XcResultSource {
+
+    private final XcResultBundle bundle;
+    private final XcResultSource fallback;
+
+    public NativeXcResultSource(final XcResultBundle bundle, final XcResultSource fallback) {
+        this.bundle = bundle;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public <T> T readSummary(final ThrowableFunction<InputStream, T> reader) {
+        return fallback.readSummary(reader);
+    }
+
+    @Override
+    public <T> T readReference(final String id, final ThrowableFunction<InputStream, T> reader) {
+        return fallback.readReference(id, reader);
+    }
+
+    @Override
+    public void exportReference(final String id, final String attachmentId, final Path output) {
+        if (!bundle.hasData(id)) {
+            fallback.exportReference(id, attachmentId, output);
+            return;
+        }
+        try (InputStream input = bundle.openData(id)) {
+            Files.copy(input, output, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean hasTestResults() {
+        return fallback.hasTestResults();
+    }
+
+    @Override
+    public <T> T readTestResults(final TestResultsCommand command,
+                                 final String testId,
+                                 final ThrowableFunction<InputStream, T> reader) {
+        return fallback.readTestResults(command, testId, reader);
+    }
+
+}
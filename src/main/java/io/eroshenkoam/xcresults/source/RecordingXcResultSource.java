@@ -0,0 +1,82 @@
+package io.eroshenkoam.xcresults.source;
+
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static io.eroshenkoam.xcresults.source.ReplayXcResultSource.getPayloadPath;
+import static io.eroshenkoam.xcresults.source.ReplayXcResultSource.getReferencePath;
+import static io.eroshenkoam.xcresults.source.ReplayXcResultSource.getTestResultsPath;
+
+/**
+ * Records everything read from the delegate in the layout served by {@link ReplayXcResultSource}.
+ */
+public class RecordingXcResultSource implements XcResultSource {
+
+    private final XcResultSource delegate;
+    private final Path recordPath;
+
+    public RecordingXcResultSource(final XcResultSource delegate, final Path recordPath) {
+        this.delegate = delegate;
+        this.recordPath = recordPath;
+    }
+
+    @Override
+    public <T> T readSummary(final ThrowableFunction<InputStream, T> reader) {
+        final Path target = recordPath.resolve(ReplayXcResultSource.SUMMARY);
+        return delegate.readSummary(input -> record(input, target, reader));
+    }
+
+    @Override
+    public <T> T readReference(final String id, final ThrowableFunction<InputStream, T> reader) {
+        final Path target = getReferencePath(recordPath, id);
+        return delegate.readReference(id, input -> record(input, target, reader));
+    }
+
+    @Override
+    public void exportReference(final String id, final String attachmentId, final Path output) {
+        delegate.exportReference(id, attachmentId, output);
+        try {
+            final Path target = getPayloadPath(recordPath, id);
+            final Path temp = createTempFile(target);
+            Files.copy(output, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean hasTestResults() {
+        return delegate.hasTestResults();
+    }
+
+    @Override
+    public <T> T readTestResults(final TestResultsCommand command,
+                                 final String testId,
+                                 final ThrowableFunction<InputStream, T> reader) {
+        final Path target = getTestResultsPath(recordPath, command, testId);
+        return delegate.readTestResults(command, testId, input -> record(input, target, reader));
+    }
+
+    private static <T> T record(final InputStream input,
+                                final Path target,
+                                final ThrowableFunction<InputStream, T> reader) throws IOException {
+        final Path temp = createTempFile(target);
+        Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try (InputStream recorded = Files.newInputStream(target)) {
+            return reader.apply(recorded);
+        }
+    }
+
+    private static Path createTempFile(final Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        return Files.createTempFile(target.getParent(), "record", ".tmp");
+    }
+
+}
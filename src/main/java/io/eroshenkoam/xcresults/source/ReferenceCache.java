@@ -0,0 +1,234 @@
+package io.eroshenkoam.xcresults.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of references and payloads shared by all exported bundles.
+ * <p>
+ * Every bundle gets its own directory named by {@link #getBundleKey(Path)} with the layout
+ * of {@link ReplayXcResultSource}. Entries are touched on every hit, and the least recently
+ * used ones are evicted as soon as a stored entry grows the cache over its maximum size.
+ * The cache directory is scanned once, on first use, and then tracked in memory.
+ */
+public class ReferenceCache {
+
+    private static final String INFO_PLIST = "Info.plist";
+
+    private final Path cachePath;
+    private final long maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    /**
+     * Entry sizes in least recently used order.
+     */
+    private final Map<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private boolean loaded;
+
+    public ReferenceCache(final Path cachePath, final long maxSize) {
+        this.cachePath = cachePath;
+        this.maxSize = maxSize;
+    }
+
+    public Path getCachePath() {
+        return cachePath;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    /**
+     * Bundles are identified by the content of {@code Info.plist}, which holds the root object id,
+     * so a copied or moved bundle is still served from the cache. Anything else is identified by
+     * its absolute path and modification time.
+     */
+    public static String getBundleKey(final Path input) {
+        try {
+            final Path infoPlist = input.resolve(INFO_PLIST);
+            if (Files.isRegularFile(infoPlist)) {
+                return UUID.nameUUIDFromBytes(Files.readAllBytes(infoPlist)).toString();
+            }
+            final String identity = String.format(
+                    "%s:%s", input.toAbsolutePath().normalize(), Files.getLastModifiedTime(input).toMillis()
+            );
+            return UUID.nameUUIDFromBytes(identity.getBytes(StandardCharsets.UTF_8)).toString();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    Path getBundlePath(final String bundleKey) {
+        return cachePath.resolve(bundleKey);
+    }
+
+    /**
+     * Opens the entry under the eviction lock, so it can not be evicted between the lookup and
+     * the read. An opened entry stays readable even if it is evicted while it is being read.
+     *
+     * @return stream of the entry marked as recently used, or {@code null} if the entry is not cached
+     */
+    synchronized InputStream open(final Path entry) {
+        final InputStream input;
+        try {
+            input = Files.newInputStream(entry);
+        } catch (IOException e) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // entry is still usable, it is just going to be evicted earlier
+        }
+        touch(entry);
+        hits.incrementAndGet();
+        return input;
+    }
+
+    Path createTempFile(final Path entry) throws IOException {
+        Files.createDirectories(entry.getParent());
+        return Files.createTempFile(entry.getParent(), "cache", ".tmp");
+    }
+
+    synchronized void store(final Path temp, final Path entry) throws IOException {
+        final long entrySize = Files.size(temp);
+        Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        add(entry, entrySize);
+    }
+
+    /**
+     * Stores the entry and opens it before any other export can evict it.
+     */
+    synchronized InputStream storeAndOpen(final Path temp, final Path entry) throws IOException {
+        store(temp, entry);
+        return Files.newInputStream(entry);
+    }
+
+    /**
+     * Evicts least recently used entries until the cache fits its maximum size.
+     * Entries are already evicted while storing, so this only matters when the cache was
+     * over its size before the run, e.g. after the maximum size was lowered.
+     */
+    public synchronized void evict() {
+        evictOverflow(null);
+    }
+
+    private synchronized void touch(final Path entry) {
+        load();
+        if (Objects.isNull(entries.get(entry))) {
+            try {
+                add(entry, Files.size(entry));
+            } catch (IOException e) {
+                // entry was removed by a concurrent export
+            }
+        }
+    }
+
+    private synchronized void add(final Path entry, final long entrySize) {
+        load();
+        final Long previous = entries.put(entry, entrySize);
+        size += entrySize - (Objects.isNull(previous) ? 0 : previous);
+        evictOverflow(entry);
+    }
+
+    /**
+     * @param keep entry that was just stored and is going to be read, it is never evicted
+     */
+    private void evictOverflow(final Path keep) {
+        load();
+        final Iterator<Map.Entry<Path, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            final Map.Entry<Path, Long> entry = iterator.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(entry.getKey());
+                iterator.remove();
+                size -= entry.getValue();
+                evicted.incrementAndGet();
+            } catch (IOException e) {
+                System.out.printf("Can not evict [%s]: %s%n", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads entries left by previous runs, oldest first.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        if (!Files.isDirectory(cachePath)) {
+            return;
+        }
+        final List<Entry> existing = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(cachePath)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                existing.add(new Entry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+            }
+        } catch (IOException e) {
+            System.out.printf("Can not read reference cache: %s%n", e.getMessage());
+            return;
+        }
+        existing.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (Entry entry : existing) {
+            entries.put(entry.path, entry.size);
+            size += entry.size;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("reference cache [%s]: %s hits, %s misses, %s evicted",
+                cachePath, getHits(), getMisses(), getEvicted());
+    }
+
+    private static final class Entry {
+
+        private final Path path;
+        private final long size;
+        private final long lastUsed;
+
+        private Entry(final Path path, final long size, final long lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+
+    }
+
+}
@@ -0,0 +1,97 @@
+package io.eroshenkoam.xcresults.source;
+
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Serves bundle data from a directory recorded by {@link RecordingXcResultSource}.
+ * <p>
+ * Layout: {@code summary.json}, {@code references/<id>.json} and {@code payloads/<id>}.
+ * Bundles read with the Xcode 16 API are recorded as {@code test-results/<command>.json}
+ * and {@code test-results/<command>/<test id>.json} instead of the summary and references.
+ */
+public class ReplayXcResultSource implements XcResultSource {
+
+    public static final String SUMMARY = "summary.json";
+    public static final String REFERENCES = "references";
+    public static final String PAYLOADS = "payloads";
+    public static final String TEST_RESULTS = "test-results";
+
+    private final Path recordPath;
+
+    public ReplayXcResultSource(final Path recordPath) {
+        this.recordPath = recordPath;
+    }
+
+    public static boolean isRecording(final Path path) {
+        return Files.isRegularFile(path.resolve(SUMMARY))
+                || Files.isRegularFile(getTestResultsPath(path, TestResultsCommand.TESTS, null));
+    }
+
+    @Override
+    public <T> T readSummary(final ThrowableFunction<InputStream, T> reader) {
+        return read(recordPath.resolve(SUMMARY), reader);
+    }
+
+    @Override
+    public <T> T readReference(final String id, final ThrowableFunction<InputStream, T> reader) {
+        return read(getReferencePath(recordPath, id), reader);
+    }
+
+    @Override
+    public void exportReference(final String id, final String attachmentId, final Path output) {
+        try {
+            Files.copy(getPayloadPath(recordPath, id), output, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public boolean hasTestResults() {
+        return Files.isRegularFile(getTestResultsPath(recordPath, TestResultsCommand.TESTS, null));
+    }
+
+    @Override
+    public <T> T readTestResults(final TestResultsCommand command,
+                                 final String testId,
+                                 final ThrowableFunction<InputStream, T> reader) {
+        return read(getTestResultsPath(recordPath, command, testId), reader);
+    }
+
+    static Path getReferencePath(final Path recordPath, final String id) {
+        return recordPath.resolve(REFERENCES).resolve(getFileName(id) + ".json");
+    }
+
+    static Path getPayloadPath(final Path recordPath, final String id) {
+        return recordPath.resolve(PAYLOADS).resolve(getFileName(id));
+    }
+
+    static Path getTestResultsPath(final Path recordPath, final TestResultsCommand command, final String testId) {
+        final Path path = recordPath.resolve(TEST_RESULTS);
+        if (command.isPerTest()) {
+            return path.resolve(command.getValue()).resolve(getFileName(testId) + ".json");
+        }
+        return path.resolve(command.getValue() + ".json");
+    }
+
+    private static String getFileName(final String id) {
+        return URLEncoder.encode(id, StandardCharsets.UTF_8);
+    }
+
+    private static <T> T read(final Path path, final ThrowableFunction<InputStream, T> reader) {
+        try (InputStream input = Files.newInputStream(path)) {
+            return reader.apply(input);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
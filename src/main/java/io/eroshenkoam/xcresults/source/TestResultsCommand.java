@@ -0,0 +1,31 @@
+package io.eroshenkoam.xcresults.source;
+
+/**
+ * Commands of {@code xcresulttool get test-results}, available since Xcode 16.
+ */
+public enum TestResultsCommand {
+
+    SUMMARY("summary"),
+
+    TESTS("tests"),
+
+    ACTIVITIES("activities");
+
+    private final String value;
+
+    TestResultsCommand(final String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return {@code true} if the command reads a single test and requires {@code --test-id}
+     */
+    public boolean isPerTest() {
+        return this == ACTIVITIES;
+    }
+
+}
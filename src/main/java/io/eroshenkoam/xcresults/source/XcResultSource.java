@@ -0,0 +1,34 @@
+package io.eroshenkoam.xcresults.source;
+
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Data access to a single xcresult bundle.
+ */
+public interface XcResultSource {
+
+    <T> T readSummary(ThrowableFunction<InputStream, T> reader);
+
+    <T> T readReference(String id, ThrowableFunction<InputStream, T> reader);
+
+    /**
+     * @param attachmentId id of the attachment the payload belongs to, used to find the payload
+     *                     in bulk exports, may be {@code null}
+     */
+    void exportReference(String id, String attachmentId, Path output);
+
+    /**
+     * @return {@code true} if the bundle can be read with {@link #readTestResults}
+     */
+    boolean hasTestResults();
+
+    /**
+     * Reads output of {@code xcresulttool get test-results}, {@code testId} is {@code null} unless
+     * the command {@link TestResultsCommand#isPerTest() reads a single test}.
+     */
+    <T> T readTestResults(TestResultsCommand command, String testId, ThrowableFunction<InputStream, T> reader);
+
+}
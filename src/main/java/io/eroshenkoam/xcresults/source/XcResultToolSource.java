@@ -0,0 +1,104 @@
+package io.eroshenkoam.xcresults.source;
+
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+import io.eroshenkoam.xcresults.xcode.XcodeToolchain;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static io.eroshenkoam.xcresults.util.ProcessUtil.readProcessOutput;
+import static io.eroshenkoam.xcresults.util.ProcessUtil.runProcess;
+
+/**
+ * Reads bundle data with {@code xcrun xcresulttool}.
+ */
+public class XcResultToolSource implements XcResultSource {
+
+    private final Path inputPath;
+    private final XcodeToolchain toolchain;
+
+    public XcResultToolSource(final Path inputPath, final XcodeToolchain toolchain) {
+        this.inputPath = inputPath;
+        this.toolchain = toolchain;
+    }
+
+    @Override
+    public <T> T readSummary(final ThrowableFunction<InputStream, T> reader) {
+        final ProcessBuilder builder = processBuilderForXCResultToolCommand(
+                "get",
+                "--format", "json",
+                "--path", inputPath.toAbsolutePath().toString()
+        );
+        return readProcessOutput(builder, reader);
+    }
+
+    @Override
+    public <T> T readReference(final String id, final ThrowableFunction<InputStream, T> reader) {
+        final ProcessBuilder builder = processBuilderForXCResultToolCommand(
+                "get",
+                "--format", "json",
+                "--path", inputPath.toAbsolutePath().toString(),
+                "--id", id
+        );
+        return readProcessOutput(builder, reader);
+    }
+
+    @Override
+    public void exportReference(final String id, final String attachmentId, final Path output) {
+        final ProcessBuilder exportBuilder = processBuilderForXCResultToolCommand(
+                "export",
+                "--type", "file",
+                "--path", inputPath.toAbsolutePath().toString(),
+                "--id", id,
+                "--output-path", output.toAbsolutePath().toString()
+        );
+        runProcess(exportBuilder);
+    }
+
+    /**
+     * Exports all attachments of the bundle with {@code manifest.json} in a single call, requires Xcode 16.
+     */
+    public void exportAttachments(final Path outputPath) {
+        final ProcessBuilder builder = new ProcessBuilder(
+                "xcrun", "xcresulttool",
+                "export", "attachments",
+                "--path", inputPath.toAbsolutePath().toString(),
+                "--output-path", outputPath.toAbsolutePath().toString()
+        );
+        runProcess(builder);
+    }
+
+    @Override
+    public boolean hasTestResults() {
+        return toolchain.isTestResultsSupported();
+    }
+
+    @Override
+    public <T> T readTestResults(final TestResultsCommand command,
+                                 final String testId,
+                                 final ThrowableFunction<InputStream, T> reader) {
+        final ProcessBuilder builder = new ProcessBuilder(
+                "xcrun", "xcresulttool",
+                "get", "test-results", command.getValue(),
+                "--format", "json",
+                "--path", inputPath.toAbsolutePath().toString()
+        );
+        if (command.isPerTest()) {
+            builder.command().add("--test-id");
+            builder.command().add(testId);
+        }
+        return readProcessOutput(builder, reader);
+    }
+
+    private ProcessBuilder processBuilderForXCResultToolCommand(String... command) {
+        final ProcessBuilder builder = new ProcessBuilder();
+        builder.command(command);
+        builder.command().add(0, "xcrun");
+        builder.command().add(1, "xcresulttool");
+        if (toolchain.isLegacyFlagRequired()) {
+            builder.command().add("--legacy");
+        }
+        return builder;
+    }
+
+}
@@ -0,0 +1,215 @@
+package io.eroshenkoam.xcresults.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Export phase timings, process latencies and written bytes of a run.
+ * <p>
+ * Collecting is a few atomic updates per measured call, so it is always on, the report is only
+ * written with {@code --metrics}. Phases run concurrently, so every phase reports both the sum of
+ * its call times and its wall time from the first start to the last finish. The total heap usage is
+ * sampled with every measured call, the report holds the highest sample.
+ */
+public final class ExportMetrics {
+
+    public static final String PHASE_SUMMARY = "summary";
+    public static final String PHASE_REFERENCES = "references";
+    public static final String PHASE_FORMAT = "format";
+    public static final String PHASE_WRITE = "write";
+    public static final String PHASE_ATTACHMENTS = "attachments";
+    public static final String PHASE_HEIC = "heic";
+    public static final String PHASE_CAROUSEL = "carousel";
+
+    public static final String BYTES_RESULTS = "results";
+    public static final String BYTES_ATTACHMENTS = "attachments";
+    public static final String BYTES_CAROUSEL = "carousel";
+
+    /**
+     * Test runs without recorded times, exported with the start of the test plan run.
+     */
+    public static final String COUNT_SYNTHESIZED_TIMES = "synthesizedTimes";
+
+    /**
+     * Upper bounds of process latency buckets in milliseconds, the last bucket is unbounded.
+     */
+    private static final long[] LATENCY_BUCKETS = {10, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+    private static final int COMMAND_WORDS = 5;
+
+    private static ExportMetrics defaultMetrics = new ExportMetrics();
+
+    private final long started = System.nanoTime();
+
+    private final Map<String, Phase> phases = new ConcurrentHashMap<>();
+    private final Map<String, Latency> processes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> bytesWritten = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counts = new ConcurrentHashMap<>();
+    private final AtomicLong peakHeap = new AtomicLong();
+
+    public static synchronized ExportMetrics getDefault() {
+        return defaultMetrics;
+    }
+
+    public static synchronized void setDefault(final ExportMetrics metrics) {
+        defaultMetrics = metrics;
+    }
+
+    /**
+     * @param start value of {@link System#nanoTime()} when the call started
+     */
+    public void record(final String phase, final long start) {
+        sampleHeap();
+        phases.computeIfAbsent(phase, name -> new Phase()).add(start, System.nanoTime());
+    }
+
+    public void recordProcess(final ProcessBuilder builder, final long start, final boolean failed) {
+        sampleHeap();
+        processes.computeIfAbsent(getCommandType(builder), name -> new Latency()).add(System.nanoTime() - start, failed);
+    }
+
+    public void recordWritten(final String type, final Path file) {
+        sampleHeap();
+        try {
+            bytesWritten.computeIfAbsent(type, name -> new AtomicLong()).addAndGet(Files.size(file));
+        } catch (IOException e) {
+            // file was moved or deleted, there is nothing to count
+        }
+    }
+
+    public void count(final String name) {
+        counts.computeIfAbsent(name, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    public long getCount(final String name) {
+        final AtomicLong count = counts.get(name);
+        return Objects.nonNull(count) ? count.get() : 0;
+    }
+
+    public long getPeakHeap() {
+        sampleHeap();
+        return peakHeap.get();
+    }
+
+    public void write(final Path file) throws IOException {
+        final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        final ObjectNode report = mapper.createObjectNode()
+                .put("durationMillis", toMillis(System.nanoTime() - started))
+                .put("peakHeapBytes", getPeakHeap());
+
+        final ObjectNode phasesNode = report.putObject("phases");
+        new TreeMap<>(phases).forEach((name, phase) -> phasesNode.putObject(name)
+                .put("count", phase.count.get())
+                .put("totalMillis", toMillis(phase.total.get()))
+                .put("wallMillis", toMillis(phase.last.get() - phase.first.get())));
+
+        final ObjectNode processesNode = report.putObject("processes");
+        new TreeMap<>(processes).forEach((command, latency) -> {
+            final ObjectNode node = processesNode.putObject(command)
+                    .put("count", latency.count.get())
+                    .put("failures", latency.failures.get())
+                    .put("totalMillis", toMillis(latency.total.get()))
+                    .put("maxMillis", toMillis(latency.max.get()));
+            final ObjectNode histogram = node.putObject("histogramMillis");
+            for (int i = 0; i <= LATENCY_BUCKETS.length; i++) {
+                final String bound = i < LATENCY_BUCKETS.length ? String.valueOf(LATENCY_BUCKETS[i]) : "+Inf";
+                histogram.put(bound, latency.buckets.get(i));
+            }
+        });
+
+        final ObjectNode bytesNode = report.putObject("bytesWritten");
+        new TreeMap<>(bytesWritten).forEach((type, bytes) -> bytesNode.put(type, bytes.get()));
+        bytesNode.put("total", bytesWritten.values().stream().mapToLong(AtomicLong::get).sum());
+
+        final ObjectNode countsNode = report.putObject("counts");
+        new TreeMap<>(counts).forEach((name, count) -> countsNode.put(name, count.get()));
+
+        if (Objects.nonNull(file.getParent())) {
+            Files.createDirectories(file.getParent());
+        }
+        mapper.writeValue(file.toFile(), report);
+    }
+
+    /**
+     * Executable followed by its leading arguments, e.g. {@code xcrun xcresulttool get test-results tests}.
+     */
+    private static String getCommandType(final ProcessBuilder builder) {
+        final List<String> command = builder.command();
+        if (command.isEmpty()) {
+            return "";
+        }
+        final StringBuilder type = new StringBuilder(Path.of(command.get(0)).getFileName().toString());
+        for (int i = 1; i < command.size() && i < COMMAND_WORDS; i++) {
+            final String argument = command.get(i);
+            if (argument.startsWith("-") || argument.contains("/")) {
+                break;
+            }
+            type.append(' ').append(argument);
+        }
+        return type.toString();
+    }
+
+    private void sampleHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        peakHeap.accumulateAndGet(runtime.totalMemory() - runtime.freeMemory(), Math::max);
+    }
+
+    private static long toMillis(final long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class Phase {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong first = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+
+        private void add(final long start, final long finish) {
+            count.incrementAndGet();
+            total.addAndGet(finish - start);
+            first.accumulateAndGet(start, Math::min);
+            last.accumulateAndGet(finish, Math::max);
+        }
+
+    }
+
+    private static final class Latency {
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(LATENCY_BUCKETS.length + 1);
+
+        private void add(final long nanos, final boolean failed) {
+            count.incrementAndGet();
+            if (failed) {
+                failures.incrementAndGet();
+            }
+            total.addAndGet(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+            final long millis = toMillis(nanos);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS.length && millis > LATENCY_BUCKETS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+
+    }
+
+}
@@ -1,12 +1,22 @@
 package io.eroshenkoam.xcresults.util;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
 import java.util.UUID;
 
 public final class FormatUtil {
 
+    private static final String DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+    private static final int DATE_LENGTH = 28;
+    private static final int MIN_FIXED_YEAR = 1600;
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+    private static final long INVALID_DATE = Long.MIN_VALUE;
+
     private FormatUtil(){
     }
 
@@ -20,17 +30,118 @@ public final class FormatUtil {
         return String.format("%s-attachment.%s", uuid, fileExtension);
     }
 
+    /**
+     * @return the same file name for the same key
+     */
+    public static String getAttachmentFileName(final String key, final String fileExtension) {
+        final UUID uuid = UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+        return String.format("%s-attachment.%s", uuid, fileExtension);
+    }
+
     public static Path getResultFilePath(final Path outputDir) {
         return outputDir.resolve(getResultFileName());
     }
 
-    @SuppressWarnings("PMD.SimpleDateFormatNeedsLocale")
+    /**
+     * Parses xcresult timestamps such as {@code 2024-03-05T12:44:40.000+0300}.
+     * <p>
+     * The fixed layout is parsed in place without intermediate objects, other variants fall back
+     * to lenient parsing. Nothing is shared between calls, so it is safe to call from any thread.
+     *
+     * @return epoch millis, or {@code null} if the date can not be parsed
+     */
     public static Long parseDate(final String date) {
-        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+        if (Objects.isNull(date)) {
+            return null;
+        }
+        final long millis = parseFixedDate(date);
+        return millis != INVALID_DATE ? Long.valueOf(millis) : parseDateLeniently(date);
+    }
+
+    /**
+     * Dates before the Gregorian cutover and out of range fields are left to the lenient parser.
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private static long parseFixedDate(final CharSequence date) {
+        if (date.length() != DATE_LENGTH
+                || date.charAt(4) != '-' || date.charAt(7) != '-' || date.charAt(10) != 'T'
+                || date.charAt(13) != ':' || date.charAt(16) != ':' || date.charAt(19) != '.') {
+            return INVALID_DATE;
+        }
+        final char sign = date.charAt(23);
+        final int year = parseDigits(date, 0, 4);
+        final int month = parseDigits(date, 5, 2);
+        final int day = parseDigits(date, 8, 2);
+        final int hour = parseDigits(date, 11, 2);
+        final int minute = parseDigits(date, 14, 2);
+        final int second = parseDigits(date, 17, 2);
+        final int millis = parseDigits(date, 20, 3);
+        final int offsetHours = parseDigits(date, 24, 2);
+        final int offsetMinutes = parseDigits(date, 26, 2);
+        if ((sign != '+' && sign != '-')
+                || year < MIN_FIXED_YEAR || month < 1 || month > 12 || day < 1 || day > getMonthLength(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 || millis < 0
+                || offsetHours < 0 || offsetHours > 23 || offsetMinutes < 0 || offsetMinutes > 59) {
+            return INVALID_DATE;
+        }
+        final long offset = (offsetHours * 60L + offsetMinutes) * 60_000L;
+        final long local = ((getEpochDay(year, month, day) * 24 + hour) * 60 + minute) * 60_000L
+                + second * 1000L + millis;
+        return sign == '+' ? local - offset : local + offset;
+    }
+
+    /**
+     * @return value of {@code length} decimal digits starting at {@code start}, or {@code -1} if there is a non digit
+     */
+    private static int parseDigits(final CharSequence value, final int start, final int length) {
+        int result = 0;
+        for (int i = start; i < start + length; i++) {
+            final int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static int getMonthLength(final int year, final int month) {
+        if (month == 2) {
+            return isLeapYear(year) ? 29 : 28;
+        }
+        return 30 + ((month + month / 8) & 1);
+    }
+
+    private static boolean isLeapYear(final int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Same as {@link java.time.LocalDate#toEpochDay()} for years after the Gregorian cutover.
+     */
+    private static long getEpochDay(final int year, final int month, final int day) {
+        long days = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        days += (367 * month - 362) / 12 + day - 1;
+        if (month > 2) {
+            days -= isLeapYear(year) ? 1 : 2;
+        }
+        return days - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Accepts whatever {@link SimpleDateFormat} accepted before, and ISO-8601 dates with any fraction
+     * and {@code Z} or {@code +03:00} offsets.
+     */
+    @SuppressWarnings("PMD.SimpleDateFormatNeedsLocale")
+    private static Long parseDateLeniently(final String date) {
         try {
-            return format.parse(date).getTime();
+            return new SimpleDateFormat(DATE_PATTERN).parse(date).getTime();
         } catch (ParseException e) {
-            return null;
+            try {
+                return OffsetDateTime.parse(date).toInstant().toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
         }
     }
 
@@ -0,0 +1,41 @@
+package io.eroshenkoam.xcresults.util;
+
+/**
+ * External process failed to start, exited with non-zero code or timed out.
+ */
+public class ProcessException extends RuntimeException {
+
+    private final int exitCode;
+    private final boolean retryable;
+
+    public ProcessException(final ProcessBuilder builder, final int exitCode, final String details) {
+        this(builder, exitCode, details, false);
+    }
+
+    public ProcessException(final ProcessBuilder builder,
+                            final int exitCode,
+                            final String details,
+                            final boolean retryable) {
+        super(String.format("Command '%s' failed%s: %s",
+                String.join(" ", builder.command()),
+                exitCode >= 0 ? String.format(" with exit code %s", exitCode) : "",
+                details));
+        this.exitCode = exitCode;
+        this.retryable = retryable;
+    }
+
+    /**
+     * @return exit code of the process, or {@code -1} if it did not exit by itself
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * @return {@code true} if the failure is transient and running the same command again may succeed
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+}
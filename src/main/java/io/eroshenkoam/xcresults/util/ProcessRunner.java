@@ -0,0 +1,249 @@
+package io.eroshenkoam.xcresults.util;
+
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs external processes asynchronously.
+ * <p>
+ * Stdout is handed to the reader while stderr is drained concurrently, so a chatty process
+ * can not block on a full pipe. Every run waits for the process to exit, checks the exit code,
+ * and kills the process once the timeout expires. Transient failures, such as a process that could
+ * not be started or was killed by a signal it did not get from the runner, are retried a bounded
+ * number of times. Non-zero exit codes and timeouts are not retried, since running the same
+ * command again gives the same result. A failed reader is not retried either and is reported as is,
+ * even though the process then dies of a broken pipe. At most {@code concurrency} processes run at the same time.
+ */
+public class ProcessRunner {
+
+    private static final int STDERR_TAIL_SIZE = 4096;
+    private static final long RETRY_DELAY_MILLIS = 500;
+    private static final int SIGNAL_EXIT_CODE = 128;
+
+    private static final ScheduledThreadPoolExecutor WATCHDOG = createWatchdog();
+
+    private static ProcessRunner defaultRunner = new ProcessRunner(0, Duration.ZERO, 0);
+
+    private final Semaphore limit;
+    private final Duration timeout;
+    private final int retries;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "process-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param concurrency maximum number of running processes, not limited if not positive
+     * @param timeout     time limit of a single run, not limited if zero
+     * @param retries     number of additional runs after a transient failure
+     */
+    public ProcessRunner(final int concurrency, final Duration timeout, final int retries) {
+        this.limit = concurrency > 0 ? new Semaphore(concurrency) : null;
+        this.timeout = timeout;
+        this.retries = Math.max(0, retries);
+    }
+
+    public static synchronized ProcessRunner getDefault() {
+        return defaultRunner;
+    }
+
+    public static synchronized void setDefault(final ProcessRunner runner) {
+        defaultRunner = runner;
+    }
+
+    /**
+     * Cancelling the returned future kills the running process.
+     */
+    public <T> CompletableFuture<T> run(final ProcessBuilder builder, final ThrowableFunction<InputStream, T> reader) {
+        final AtomicReference<Process> current = new AtomicReference<>();
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        result.whenComplete((value, e) -> {
+            final Process process = current.get();
+            if (result.isCancelled() && Objects.nonNull(process)) {
+                kill(process);
+            }
+        });
+        executor.execute(() -> {
+            for (int attempt = 0; !result.isDone(); attempt++) {
+                try {
+                    result.complete(runOnce(builder, reader, current, result));
+                } catch (ProcessException e) {
+                    if (!e.isRetryable() || attempt >= retries || result.isDone()) {
+                        result.completeExceptionally(e);
+                    } else {
+                        sleepBeforeRetry(attempt);
+                    }
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+        return result;
+    }
+
+    private <T> T runOnce(final ProcessBuilder builder,
+                          final ThrowableFunction<InputStream, T> reader,
+                          final AtomicReference<Process> current,
+                          final CompletableFuture<T> result) throws IOException, InterruptedException {
+        acquire();
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final long deadline = start + timeout.toNanos();
+            final Process process;
+            try {
+                process = builder.start();
+            } catch (IOException e) {
+                throw new ProcessException(builder, -1, e.getMessage(), true);
+            }
+            boolean exited = false;
+            try {
+                current.set(process);
+                if (result.isCancelled()) {
+                    kill(process);
+                }
+                final CompletableFuture<String> stderr = CompletableFuture.supplyAsync(
+                        () -> readTail(process.getErrorStream()), executor
+                );
+                final Future<?> watchdog = scheduleTimeout(process, deadline);
+                T value = null;
+                IOException readFailure = null;
+                try (InputStream input = process.getInputStream()) {
+                    value = reader.apply(input);
+                } catch (IOException e) {
+                    readFailure = e;
+                } finally {
+                    watchdog.cancel(false);
+                }
+                if (!waitFor(process, deadline)) {
+                    throw new ProcessException(builder, -1, String.format("timed out after %s", timeout));
+                }
+                exited = true;
+                final int exitCode = process.exitValue();
+                if (exitCode != 0 && isExpired(deadline)) {
+                    throw new ProcessException(builder, -1, String.format("killed after %s timeout", timeout));
+                }
+                if (exitCode != 0 && exitCode <= SIGNAL_EXIT_CODE) {
+                    throw new ProcessException(builder, exitCode, stderr.join());
+                }
+                if (Objects.nonNull(readFailure)) {
+                    throw readFailure;
+                }
+                if (exitCode != 0) {
+                    throw new ProcessException(builder, exitCode, stderr.join(), !result.isCancelled());
+                }
+                failed = false;
+                return value;
+            } finally {
+                if (!exited) {
+                    kill(process);
+                }
+            }
+        } finally {
+            ExportMetrics.getDefault().recordProcess(builder, start, failed);
+            release();
+        }
+    }
+
+    /**
+     * Reader may block on a hanging process, so the timeout is enforced by killing the process.
+     */
+    private Future<?> scheduleTimeout(final Process process, final long deadline) {
+        if (timeout.isZero()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return WATCHDOG.schedule(() -> kill(process), Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * One thread enforces the timeouts of all runs, cancelled timeouts are removed right away.
+     */
+    private static ScheduledThreadPoolExecutor createWatchdog() {
+        final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "process-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.setRemoveOnCancelPolicy(true);
+        return watchdog;
+    }
+
+    private boolean waitFor(final Process process, final long deadline) throws InterruptedException {
+        if (timeout.isZero()) {
+            process.waitFor();
+            return true;
+        }
+        return process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Children are killed as well, otherwise they keep the output pipe open and the reader hangs.
+     */
+    private static void kill(final Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    private boolean isExpired(final long deadline) {
+        return !timeout.isZero() && System.nanoTime() - deadline >= 0;
+    }
+
+    private static String readTail(final InputStream input) {
+        final byte[] tail = new byte[STDERR_TAIL_SIZE];
+        final byte[] buffer = new byte[8192];
+        int size = 0;
+        try (InputStream stream = input) {
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                if (read >= tail.length) {
+                    System.arraycopy(buffer, read - tail.length, tail, 0, tail.length);
+                    size = tail.length;
+                } else {
+                    final int keep = Math.min(size, tail.length - read);
+                    System.arraycopy(tail, size - keep, tail, 0, keep);
+                    System.arraycopy(buffer, 0, tail, keep, read);
+                    size = keep + read;
+                }
+            }
+        } catch (IOException e) {
+            // process was killed, keep what was read
+        }
+        return new String(tail, 0, size, StandardCharsets.UTF_8).trim();
+    }
+
+    private static void sleepBeforeRetry(final int attempt) {
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS * (attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void acquire() throws InterruptedException {
+        if (Objects.nonNull(limit)) {
+            limit.acquire();
+        }
+    }
+
+    private void release() {
+        if (Objects.nonNull(limit)) {
+            limit.release();
+        }
+    }
+
+}
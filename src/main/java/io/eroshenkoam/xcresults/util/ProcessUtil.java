@@ -1,13 +1,12 @@
 package io.eroshenkoam.xcresults.util;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Objects;
+import java.util.concurrent.CompletionException;
 
 public final class ProcessUtil {
 
@@ -18,27 +17,22 @@ public final class ProcessUtil {
         return readProcessOutput(builder, input -> IOUtils.toString(input, StandardCharsets.UTF_8));
     }
 
-    public static JsonNode readProcessOutputAsJson(final ProcessBuilder builder,
-                                                   final ObjectMapper mapper) {
-        return readProcessOutput(builder, mapper::readTree);
-    }
-
     public static <T> T readProcessOutput(final ProcessBuilder builder,
                                           final ThrowableFunction<InputStream, T> reader) {
         try {
-            final Process process = builder.start();
-            try (InputStream input = process.getInputStream()) {
-                if (Objects.nonNull(input)) {
-                    return reader.apply(input);
-                } else {
-                    return null;
-                }
+            return ProcessRunner.getDefault().run(builder, reader).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            throw new RuntimeException(e.getCause());
         }
     }
 
+    public static void runProcess(final ProcessBuilder builder) {
+        readProcessOutput(builder, input -> IOUtils.copy(input, NullOutputStream.NULL_OUTPUT_STREAM));
+    }
+
     @FunctionalInterface
     public interface ThrowableFunction<T, R> {
         R apply(T t) throws IOException;
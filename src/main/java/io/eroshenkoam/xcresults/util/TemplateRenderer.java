@@ -0,0 +1,68 @@
+package io.eroshenkoam.xcresults.util;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders templates with a single configuration, templates are compiled once and reused.
+ * <p>
+ * Compiled templates are thread safe, so one renderer is shared by the whole run.
+ */
+public class TemplateRenderer {
+
+    private static TemplateRenderer defaultRenderer;
+
+    private final Configuration configuration;
+
+    private final Map<Path, Template> fileTemplates = new ConcurrentHashMap<>();
+
+    public TemplateRenderer(final Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    public static synchronized TemplateRenderer getDefault() {
+        if (Objects.isNull(defaultRenderer)) {
+            defaultRenderer = new TemplateRenderer(FreemarkerUtil.getDefaultConfiguration());
+        }
+        return defaultRenderer;
+    }
+
+    /**
+     * Classpath templates are cached by the configuration itself.
+     */
+    public Template getTemplate(final String templateName) throws IOException {
+        return configuration.getTemplate(templateName);
+    }
+
+    public Template getTemplate(final Path templatePath) throws IOException {
+        final Path key = templatePath.toAbsolutePath().normalize();
+        final Template cached = fileTemplates.get(key);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        try (Reader reader = Files.newBufferedReader(key, StandardCharsets.UTF_8)) {
+            final Template template = new Template(key.getFileName().toString(), reader, configuration);
+            final Template previous = fileTemplates.putIfAbsent(key, template);
+            return Objects.nonNull(previous) ? previous : template;
+        }
+    }
+
+    public void render(final Template template, final Map<String, Object> data, final Path output)
+            throws IOException, TemplateException {
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            template.process(data, writer);
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+package io.eroshenkoam.xcresults.xcode;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import freemarker.template.Version;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+import static io.eroshenkoam.xcresults.util.ProcessUtil.readProcessOutputAsString;
+
+/**
+ * Capabilities of the active Xcode toolchain.
+ * <p>
+ * Probing the Xcode version requires starting {@code xcodebuild}, so it is done once per run and
+ * persisted on disk, keyed by the active developer directory. Tools on {@code PATH} are looked up
+ * on every run, so changes of {@code PATH} are picked up.
+ */
+public final class XcodeToolchain {
+
+    private static final String DEVELOPER_DIR_ENV = "DEVELOPER_DIR";
+
+    private static final String DEVELOPER_DIR = "developerDir";
+    private static final String DEVELOPER_DIR_MODIFIED = "developerDirModified";
+    private static final String XCODE_VERSION = "xcodeVersion";
+
+    private static final int LEGACY_FLAG_MAJOR_VERSION = 16;
+    private static final int TEST_RESULTS_MAJOR_VERSION = 16;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static XcodeToolchain current;
+
+    private final String developerDir;
+    private final String xcodeVersion;
+    private final boolean sipsAvailable;
+
+    private XcodeToolchain(final String developerDir, final String xcodeVersion, final boolean sipsAvailable) {
+        this.developerDir = developerDir;
+        this.xcodeVersion = xcodeVersion;
+        this.sipsAvailable = sipsAvailable;
+    }
+
+    public static synchronized XcodeToolchain detect() {
+        if (Objects.isNull(current)) {
+            current = detect(getDefaultCachePath());
+        }
+        return current;
+    }
+
+    public static XcodeToolchain detect(final Path cachePath) {
+        final String developerDir = getActiveDeveloperDir();
+        final long modified = getLastModified(developerDir);
+        final Path cacheFile = cachePath.resolve(String.format(
+                "toolchain-%s.json", UUID.nameUUIDFromBytes(developerDir.getBytes(StandardCharsets.UTF_8))
+        ));
+        final boolean sipsAvailable = isExecutableOnPath("sips");
+        final Optional<String> cached = readCache(cacheFile, developerDir, modified);
+        if (cached.isPresent()) {
+            return new XcodeToolchain(developerDir, cached.get(), sipsAvailable);
+        }
+        final XcodeToolchain toolchain = new XcodeToolchain(developerDir, probeXcodeVersion(), sipsAvailable);
+        if (Objects.nonNull(toolchain.xcodeVersion)) {
+            writeCache(cacheFile, toolchain, modified);
+        }
+        return toolchain;
+    }
+
+    public String getDeveloperDir() {
+        return developerDir;
+    }
+
+    public String getXcodeVersion() {
+        return xcodeVersion;
+    }
+
+    public int getXcodeMajorVersion() {
+        if (Objects.isNull(xcodeVersion)) {
+            return 0;
+        }
+        try {
+            return new Version(xcodeVersion).getMajor();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    public boolean isLegacyFlagRequired() {
+        return getXcodeMajorVersion() >= LEGACY_FLAG_MAJOR_VERSION;
+    }
+
+    /**
+     * Xcode 16 reads the test tree with {@code xcresulttool get test-results} in far fewer calls
+     * than walking the legacy object graph.
+     */
+    public boolean isTestResultsSupported() {
+        return getXcodeMajorVersion() >= TEST_RESULTS_MAJOR_VERSION;
+    }
+
+    public boolean isSipsAvailable() {
+        return sipsAvailable;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Xcode %s (%s)", Optional.ofNullable(xcodeVersion).orElse("unknown"), developerDir);
+    }
+
+    private static Path getDefaultCachePath() {
+        return Paths.get(System.getProperty("user.home"), ".xcresults");
+    }
+
+    private static String getActiveDeveloperDir() {
+        final String fromEnv = System.getenv(DEVELOPER_DIR_ENV);
+        if (Objects.nonNull(fromEnv) && !fromEnv.isBlank()) {
+            return fromEnv.trim();
+        }
+        try {
+            return readProcessOutputAsString(new ProcessBuilder("xcode-select", "-p")).trim();
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private static long getLastModified(final String developerDir) {
+        try {
+            return developerDir.isEmpty() ? 0 : Files.getLastModifiedTime(Paths.get(developerDir)).toMillis();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private static String probeXcodeVersion() {
+        try {
+            final String output = readProcessOutputAsString(new ProcessBuilder("xcodebuild", "-version"));
+            final String versionLine = output.split("\n")[0];
+            if (!versionLine.startsWith("Xcode ")) {
+                return null;
+            }
+            return versionLine.replaceFirst("Xcode ", "").trim();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean isExecutableOnPath(final String name) {
+        final String path = Optional.ofNullable(System.getenv("PATH")).orElse("");
+        for (String dir : path.split(File.pathSeparator)) {
+            if (!dir.isEmpty() && Files.isExecutable(Paths.get(dir, name))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Optional<String> readCache(final Path cacheFile,
+                                              final String developerDir,
+                                              final long modified) {
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+        try {
+            final JsonNode node = MAPPER.readTree(cacheFile.toFile());
+            if (!developerDir.equals(node.path(DEVELOPER_DIR).asText())
+                    || modified != node.path(DEVELOPER_DIR_MODIFIED).asLong()) {
+                return Optional.empty();
+            }
+            if (!node.hasNonNull(XCODE_VERSION)) {
+                return Optional.empty();
+            }
+            return Optional.of(node.get(XCODE_VERSION).asText());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void writeCache(final Path cacheFile, final XcodeToolchain toolchain, final long modified) {
+        final ObjectNode node = MAPPER.createObjectNode()
+                .put(DEVELOPER_DIR, toolchain.developerDir)
+                .put(DEVELOPER_DIR_MODIFIED, modified)
+                .put(XCODE_VERSION, toolchain.xcodeVersion);
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            final Path temp = Files.createTempFile(cacheFile.getParent(), "toolchain", ".tmp");
+            MAPPER.writeValue(temp.toFile(), node);
+            Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.printf("Can not cache toolchain information: %s%n", e.getMessage());
+        }
+    }
+
+}
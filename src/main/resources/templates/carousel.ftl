@@ -31,15 +31,15 @@
 <div class="demo">
     <ul id="lightSlider">
         <#list 0..carousel.images?size-1 as i>
-            <@carouselItem carousel.images[i].name carousel.images[i].base64 i />
+            <@carouselItem carousel.images[i].name carousel.images[i].src carousel.images[i].thumbnail i />
         </#list>
     </ul>
 </div>
 </body>
 </html>
 
-<#macro carouselItem name base64 index>
-    <li data-thumb="${base64}">
-        <img alt="${name}" src="${base64}" height="600px">
+<#macro carouselItem name src thumbnail index>
+    <li data-thumb="${thumbnail}">
+        <img alt="${name}" src="${src}" height="600px"<#if index gt 0> loading="lazy"</#if>>
     </li>
 </#macro>
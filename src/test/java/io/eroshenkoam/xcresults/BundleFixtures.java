@@ -0,0 +1,80 @@
+package io.eroshenkoam.xcresults;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bundle data served by the stub {@code xcrun} from {@code src/test/resources/bin}.
+ */
+public final class BundleFixtures {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BundleFixtures() {
+    }
+
+    /**
+     * Copies a fixture from {@code src/test/resources/xcresult}, so tests can add
+     * {@code refs/<id>.fail} and {@code refs/<id>.delay} files and read {@code calls.log}.
+     */
+    public static Path copy(final String name, final Path target) throws IOException {
+        FileUtils.copyDirectory(getResource("xcresult/" + name).toFile(), target.toFile());
+        return target;
+    }
+
+    public static Path getResource(final String name) {
+        final URL resource = Objects.requireNonNull(
+                BundleFixtures.class.getClassLoader().getResource(name), name
+        );
+        try {
+            return Paths.get(resource.toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @return number of stub calls by {@code "<command> <id>"}, e.g. {@code "get S1"} or {@code "export P1"}
+     */
+    public static Map<String, Long> readCalls(final Path bundle) throws IOException {
+        try (Stream<String> lines = Files.lines(bundle.resolve("calls.log"))) {
+            return lines.collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        }
+    }
+
+    public static List<JsonNode> readResults(final Path output) throws IOException {
+        final List<JsonNode> results = new ArrayList<>();
+        try (Stream<Path> files = Files.list(output)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith("-result.json"))
+                    .collect(Collectors.toList())) {
+                results.add(MAPPER.readTree(file.toFile()));
+            }
+        }
+        return results;
+    }
+
+    public static String getLabel(final JsonNode result, final String name) {
+        for (JsonNode label : result.path("labels")) {
+            if (name.equals(label.path("name").asText())) {
+                return label.path("value").asText();
+            }
+        }
+        return null;
+    }
+
+}
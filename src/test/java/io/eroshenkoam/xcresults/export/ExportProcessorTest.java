@@ -0,0 +1,148 @@
+package io.eroshenkoam.xcresults.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.eroshenkoam.xcresults.source.TestResultsCommand;
+import io.eroshenkoam.xcresults.source.XcResultToolSource;
+import io.eroshenkoam.xcresults.util.ProcessException;
+import io.eroshenkoam.xcresults.util.ProcessUtil.ThrowableFunction;
+import io.eroshenkoam.xcresults.xcode.XcodeToolchain;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.eroshenkoam.xcresults.BundleFixtures.copy;
+import static io.eroshenkoam.xcresults.BundleFixtures.getLabel;
+import static io.eroshenkoam.xcresults.BundleFixtures.readCalls;
+import static io.eroshenkoam.xcresults.BundleFixtures.readResults;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ExportProcessorTest {
+
+    private static final List<String> REFERENCES = List.of("T1", "T2", "S1", "S2", "S3", "S4", "S5");
+
+    private static final List<String> PAYLOADS = List.of(
+            "P1", "P2", "P3", "P4", "P5", "L1", "L2", "L3", "L4", "L5", "FP1", "FP3", "FP5"
+    );
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path bundle;
+    private Path output;
+    private XcodeToolchain toolchain;
+
+    @Before
+    public void setUp() throws IOException {
+        bundle = copy("legacy", folder.getRoot().toPath().resolve("Tests.xcresult"));
+        output = folder.newFolder("output").toPath();
+        toolchain = XcodeToolchain.detect(folder.newFolder("cache").toPath());
+    }
+
+    @Test
+    public void shouldResolveEveryReferenceOnce() throws Exception {
+        export(4);
+
+        final Map<String, Long> calls = readCalls(bundle);
+        assertEquals(Long.valueOf(1), calls.get("get summary"));
+        for (String reference : REFERENCES) {
+            assertEquals(reference, Long.valueOf(1), calls.get("get " + reference));
+        }
+        for (String payload : PAYLOADS) {
+            assertEquals(payload, Long.valueOf(1), calls.get("export " + payload));
+        }
+        assertEquals(1 + REFERENCES.size() + PAYLOADS.size(), calls.values().stream().mapToLong(c -> c).sum());
+        assertEquals(5, readResults(output).size());
+    }
+
+    @Test
+    public void shouldKeepSummariesWithTheirTestsWhenResolvedOutOfOrder() throws Exception {
+        delay("T1", "0.5");
+        delay("S1", "0.3");
+        delay("S4", "0.2");
+        export(4);
+
+        final Map<String, String> destinations = new HashMap<>();
+        for (JsonNode result : readResults(output)) {
+            destinations.put(result.path("fullName").asText(), getLabel(result, "runDestination"));
+        }
+        assertEquals(Map.of(
+                "Suite/test1()", "iPhone 15",
+                "Suite/test2()", "iPhone 15",
+                "Suite/test3()", "iPhone 15",
+                "Suite/test4()", "iPad Air",
+                "Suite/test5()", "iPad Air"
+        ), destinations);
+    }
+
+    @Test
+    public void shouldFailWhenSummaryReferenceCanNotBeRead() throws Exception {
+        Files.createFile(bundle.resolve("refs/S2.fail"));
+        assertExportFails("S2");
+    }
+
+    @Test
+    public void shouldFailWhenTestsReferenceCanNotBeRead() throws Exception {
+        Files.createFile(bundle.resolve("refs/T2.fail"));
+        assertExportFails("T2");
+    }
+
+    @Test
+    public void shouldFallBackToLegacyFormatWhenTestResultsCanNotBeRead() throws Exception {
+        final XcResultToolSource source = new XcResultToolSource(bundle, toolchain) {
+            @Override
+            public boolean hasTestResults() {
+                return true;
+            }
+
+            @Override
+            public <T> T readTestResults(final TestResultsCommand command,
+                                         final String testId,
+                                         final ThrowableFunction<InputStream, T> reader) {
+                throw new ProcessException(new ProcessBuilder("xcrun"), 64, "test-results is not supported");
+            }
+        };
+        new ExportProcessor(source, output, toolchain, 2, Collections.emptyList(), false).export();
+
+        assertEquals(5, readResults(output).size());
+        assertEquals(Long.valueOf(1), readCalls(bundle).get("get summary"));
+    }
+
+    private void assertExportFails(final String reference) throws Exception {
+        try {
+            export(1);
+        } catch (Exception e) {
+            Throwable cause = e;
+            while (!(cause instanceof ProcessException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            assertTrue(String.valueOf(e), cause instanceof ProcessException);
+            assertEquals(1, ((ProcessException) cause).getExitCode());
+            assertTrue(cause.getMessage(), cause.getMessage().contains("reference " + reference + " can not be read"));
+            return;
+        }
+        fail("Export should fail when reference " + reference + " can not be read");
+    }
+
+    private void delay(final String reference, final String seconds) throws IOException {
+        Files.writeString(bundle.resolve("refs/" + reference + ".delay"), seconds);
+    }
+
+    private void export(final int parallelism) throws Exception {
+        new ExportProcessor(
+                new XcResultToolSource(bundle, toolchain), output, toolchain, parallelism, Collections.emptyList(), false
+        ).export();
+    }
+
+}
@@ -0,0 +1,75 @@
+package io.eroshenkoam.xcresults.export;
+
+import io.eroshenkoam.xcresults.source.XcResultToolSource;
+import io.eroshenkoam.xcresults.xcode.XcodeToolchain;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static io.eroshenkoam.xcresults.BundleFixtures.copy;
+import static io.eroshenkoam.xcresults.BundleFixtures.readCalls;
+import static org.junit.Assert.assertEquals;
+
+public class LegacyExportEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private Path bundle;
+    private LegacyExportEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        bundle = copy("legacy", folder.getRoot().toPath().resolve("Tests.xcresult"));
+        final XcodeToolchain toolchain = XcodeToolchain.detect(folder.newFolder("cache").toPath());
+        engine = new LegacyExportEngine(new XcResultToolSource(bundle, toolchain));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldKeepActionOrderWhenTestsReferencesCompleteOutOfOrder() throws IOException {
+        Files.writeString(bundle.resolve("refs/T1.delay"), "0.5");
+
+        final List<ExportTest> tests = engine.getTests(executor);
+
+        assertEquals(
+                List.of("Suite/test1()", "Suite/test2()", "Suite/test3()", "Suite/test4()", "Suite/test5()"),
+                tests.stream().map(test -> test.getTest().getIdentifier()).collect(Collectors.toList())
+        );
+        assertEquals(
+                List.of("iPhone 15", "iPhone 15", "iPhone 15", "iPad Air", "iPad Air"),
+                tests.stream().map(test -> test.getMeta().getLabels().get("runDestination")).collect(Collectors.toList())
+        );
+        assertEquals(Long.valueOf(1), readCalls(bundle).get("get T1"));
+        assertEquals(Long.valueOf(1), readCalls(bundle).get("get T2"));
+    }
+
+    @Test
+    public void shouldResolveSummaryReferenceOfTest() throws IOException {
+        final ExportTest test = engine.getTests(executor).get(1);
+
+        final List<ExportTest> summaries = engine.getTestSummaries(test);
+
+        assertEquals(1, summaries.size());
+        assertEquals("Suite/test2()", summaries.get(0).getTest().getIdentifier());
+        assertEquals(4, summaries.get(0).getTest().getActivitySummaries().size());
+        assertEquals(Long.valueOf(1), readCalls(bundle).get("get S2"));
+    }
+
+}
@@ -0,0 +1,120 @@
+package io.eroshenkoam.xcresults.export;
+
+import io.eroshenkoam.xcresults.model.ActionTestActivitySummary;
+import io.eroshenkoam.xcresults.model.ActionTestFailureSummary;
+import io.eroshenkoam.xcresults.model.ActionTestStatus;
+import io.eroshenkoam.xcresults.model.ActionTestSummary;
+import io.eroshenkoam.xcresults.source.ReplayXcResultSource;
+import io.eroshenkoam.xcresults.util.ExportMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static io.eroshenkoam.xcresults.BundleFixtures.getResource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestResultsExportEngineTest {
+
+    private static final long RUN_START = 1709632000000L;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private final TestResultsExportEngine engine = new TestResultsExportEngine(
+            new ReplayXcResultSource(getResource("xcresult/xcode16"))
+    );
+
+    @Before
+    public void setUp() {
+        ExportMetrics.setDefault(new ExportMetrics());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        ExportMetrics.setDefault(new ExportMetrics());
+    }
+
+    @Test
+    public void shouldReadTestsOfEveryBundle() {
+        final List<ExportTest> tests = engine.getTests(executor);
+
+        assertEquals(
+                List.of("Suite/testPass()", "Suite/testFail()", "Suite/testSetupFail()", "Suite/testMulti()", "Suite/testSkipped()"),
+                tests.stream().map(test -> test.getTest().getIdentifier()).collect(Collectors.toList())
+        );
+        final ExportMeta meta = tests.get(0).getMeta();
+        assertEquals(Long.valueOf(RUN_START), meta.getStart());
+        assertEquals("AppTests", meta.getLabels().get("suite"));
+        assertEquals("iPhone 15", meta.getLabels().get("runDestination"));
+    }
+
+    @Test
+    public void shouldStartWithFirstActivityAndLastForDurationOfTest() {
+        final List<ExportTest> summaries = getTestSummaries("Suite/testPass()");
+
+        assertEquals(1, summaries.size());
+        final List<ActionTestActivitySummary> activities = summaries.get(0).getTest().getActivitySummaries();
+        assertEquals(Long.valueOf(RUN_START), activities.get(0).getStart());
+        assertEquals(Long.valueOf(RUN_START + 1500), activities.get(activities.size() - 1).getFinish());
+    }
+
+    @Test
+    public void shouldSplitActivitiesIntoRuns() {
+        final List<ExportTest> summaries = getTestSummaries("Suite/testMulti()");
+
+        assertEquals(2, summaries.size());
+        final ActionTestSummary iPhone = summaries.get(0).getTest();
+        final ActionTestSummary iPad = summaries.get(1).getTest();
+        assertEquals("iPhone 15", summaries.get(0).getMeta().getLabels().get("runDestination"));
+        assertEquals("iPad", summaries.get(1).getMeta().getLabels().get("runDestination"));
+        assertEquals(ActionTestStatus.SUCCESS, iPhone.getTestStatus());
+        assertEquals(ActionTestStatus.FAILURE, iPad.getTestStatus());
+        assertEquals(1.0, iPhone.getDuration(), 0.001);
+        assertTrue(iPhone.getFailureSummaries().isEmpty());
+
+        final ActionTestFailureSummary failure = iPad.getFailureSummaries().get(0);
+        assertEquals("boom", failure.getMessage());
+        assertFalse(failure.isTopLevelFailure());
+    }
+
+    @Test
+    public void shouldReportFailureWithoutActivityAtStartOfTest() {
+        final ActionTestSummary summary = getTestSummaries("Suite/testSetupFail()").get(0).getTest();
+
+        final ActionTestFailureSummary failure = summary.getFailureSummaries().get(0);
+        assertTrue(failure.isTopLevelFailure());
+        assertEquals(Long.valueOf(RUN_START + 20000), failure.getTimestamp());
+    }
+
+    @Test
+    public void shouldCountTestWithoutActivitiesAsSynthesizedTiming() {
+        final List<ExportTest> summaries = getTestSummaries("Suite/testSkipped()");
+
+        assertEquals(1, summaries.size());
+        final ExportTest summary = summaries.get(0);
+        assertEquals(ActionTestStatus.SKIPPED, summary.getTest().getTestStatus());
+        assertTrue(summary.getTest().getActivitySummaries().isEmpty());
+        assertEquals(Long.valueOf(RUN_START), summary.getMeta().getStart());
+        assertFalse(summary.getMeta().getLabels().containsKey("timing"));
+        assertEquals(1, ExportMetrics.getDefault().getCount(ExportMetrics.COUNT_SYNTHESIZED_TIMES));
+
+        getTestSummaries("Suite/testPass()");
+        assertEquals(1, ExportMetrics.getDefault().getCount(ExportMetrics.COUNT_SYNTHESIZED_TIMES));
+    }
+
+    private List<ExportTest> getTestSummaries(final String identifier) {
+        final ExportTest test = engine.getTests(executor).stream()
+                .filter(candidate -> identifier.equals(candidate.getTest().getIdentifier()))
+                .findFirst()
+                .orElseThrow();
+        return engine.getTestSummaries(test);
+    }
+
+}
@@ -0,0 +1,111 @@
+package io.eroshenkoam.xcresults.heic;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class HeicConversionQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<List<Path>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void shouldConvertFullBatchRightAway() throws Exception {
+        try (HeicConversionQueue queue = new HeicConversionQueue(this::convert, 2, 2, Duration.ofHours(1))) {
+            final CompletableFuture<Path> first = queue.add(createImage("first.heic"));
+            final CompletableFuture<Path> second = queue.add(createImage("second.heic"));
+
+            assertEquals("second.jpeg", second.get(10, TimeUnit.SECONDS).getFileName().toString());
+            assertEquals("first.jpeg", first.get(10, TimeUnit.SECONDS).getFileName().toString());
+            assertEquals(1, batches.size());
+        }
+    }
+
+    @Test
+    public void shouldFlushPartialBatchAfterDelay() throws Exception {
+        try (HeicConversionQueue queue = new HeicConversionQueue(this::convert, 32, 32, Duration.ofMillis(50))) {
+            final Path image = createImage("single.heic");
+
+            final Path converted = queue.add(image).get(10, TimeUnit.SECONDS);
+
+            assertEquals("single.jpeg", converted.getFileName().toString());
+            assertFalse(Files.exists(image));
+            assertEquals(List.of(List.of(image)), batches);
+        }
+    }
+
+    @Test
+    public void shouldFlushRemainderOnClose() throws Exception {
+        final CompletableFuture<Path> result;
+        try (HeicConversionQueue queue = new HeicConversionQueue(this::convert, 32, 32, Duration.ofHours(1))) {
+            result = queue.add(createImage("pending.heic"));
+            assertFalse(result.isDone());
+        }
+        assertEquals("pending.jpeg", result.getNow(null).getFileName().toString());
+    }
+
+    @Test
+    public void shouldBlockWhenFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final HeicConverter blocked = sources -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return convert(sources);
+        };
+        try (HeicConversionQueue queue = new HeicConversionQueue(blocked, 1, 1, Duration.ofHours(1))) {
+            final CompletableFuture<Path> first = queue.add(createImage("first.heic"));
+            final Path image = createImage("second.heic");
+            final CompletableFuture<CompletableFuture<Path>> second = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return queue.add(image);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            Thread.sleep(200);
+            assertFalse(second.isDone());
+            release.countDown();
+
+            assertEquals("first.jpeg", first.get(10, TimeUnit.SECONDS).getFileName().toString());
+            assertEquals("second.jpeg", second.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS).getFileName().toString());
+        }
+    }
+
+    private Path createImage(final String name) throws IOException {
+        return Files.write(folder.getRoot().toPath().resolve(name), new byte[]{1});
+    }
+
+    private Set<Path> convert(final List<Path> sources) throws IOException {
+        batches.add(new ArrayList<>(sources));
+        final Set<Path> converted = new HashSet<>();
+        for (Path source : sources) {
+            final String name = source.getFileName().toString().replace(".heic", ".jpeg");
+            Files.copy(source, source.resolveSibling(name));
+            converted.add(source);
+        }
+        return converted;
+    }
+
+}
@@ -0,0 +1,145 @@
+package io.eroshenkoam.xcresults.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static io.eroshenkoam.xcresults.BundleFixtures.getResource;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestResultsReaderTest {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    @Test
+    public void shouldReadSummary() throws IOException {
+        final ActionRecord action = read("summary.json", TestResultsReader::readSummary);
+
+        assertEquals(Long.valueOf(1709632000000L), action.getStartedTime());
+        assertEquals("iPhone 15", action.getRunDestinationName());
+    }
+
+    @Test
+    public void shouldReadTestTree() throws IOException {
+        final ActionTestPlanRunSummaries plan = read("tests.json", TestResultsReader::readTests);
+
+        assertEquals(
+                List.of("AppTests", "EmptyUITests"),
+                plan.getTestableSummaries().stream().map(ActionTestableSummary::getTargetName).collect(Collectors.toList())
+        );
+        assertTrue(plan.getTestableSummaries().get(1).getTests().isEmpty());
+
+        final ActionTestSummary suite = plan.getTestableSummaries().get(0).getTests().get(0);
+        assertEquals("ActionTestSummaryGroup", suite.getType());
+        assertEquals(
+                List.of("Suite/testPass()", "Suite/testFail()", "Suite/testSetupFail()", "Suite/testMulti()", "Suite/testSkipped()"),
+                suite.getSubtests().stream().map(ActionTestSummary::getIdentifier).collect(Collectors.toList())
+        );
+
+        final ActionTestSummary pass = suite.getSubtests().get(0);
+        assertEquals(TestResultsReader.TEST_METADATA, pass.getType());
+        assertEquals(ActionTestStatus.SUCCESS, pass.getTestStatus());
+        assertEquals(1.5, pass.getDuration(), 0.001);
+        assertEquals(0.25, suite.getSubtests().get(1).getDuration(), 0.001);
+        assertEquals(62.0, suite.getSubtests().get(2).getDuration(), 0.001);
+        assertEquals(ActionTestStatus.SKIPPED, suite.getSubtests().get(4).getTestStatus());
+    }
+
+    @Test
+    public void shouldSplitFailureLocationIntoCallStack() throws IOException {
+        final ActionTestSummary suite = read("tests.json", TestResultsReader::readTests)
+                .getTestableSummaries().get(0).getTests().get(0);
+
+        final ActionTestFailureSummary failure = suite.getSubtests().get(1).getFailureSummaries().get(0);
+        assertEquals("XCTAssertTrue failed", failure.getMessage());
+        assertEquals(List.of("Tests.swift:42"), failure.getCallStack());
+
+        final ActionTestFailureSummary setUpFailure = suite.getSubtests().get(2).getFailureSummaries().get(0);
+        assertEquals("setUp failed without location", setUpFailure.getMessage());
+        assertNull(setUpFailure.getCallStack());
+    }
+
+    @Test
+    public void shouldReadTestRunsAsSubtests() throws IOException {
+        final ActionTestSummary multi = read("tests.json", TestResultsReader::readTests)
+                .getTestableSummaries().get(0).getTests().get(0).getSubtests().get(3);
+
+        assertTrue(multi.getFailureSummaries().isEmpty());
+        assertEquals(2, multi.getSubtests().size());
+        final ActionTestSummary iPad = multi.getSubtests().get(1);
+        assertEquals(TestResultsReader.TEST_RUN, iPad.getType());
+        assertEquals(ActionTestStatus.FAILURE, iPad.getTestStatus());
+        assertEquals(2.0, iPad.getDuration(), 0.001);
+        assertEquals("boom", iPad.getFailureSummaries().get(0).getMessage());
+    }
+
+    @Test
+    public void shouldFinishActivitiesWhenNextOneStarts() throws IOException {
+        final List<TestRunActivities> runs = readActivities("Suite/testPass()");
+
+        assertEquals(1, runs.size());
+        assertEquals("iPhone 15", runs.get(0).getDeviceName());
+        final List<ActionTestActivitySummary> activities = runs.get(0).getActivities();
+        assertEquals(4, activities.size());
+
+        final ActionTestActivitySummary tap = activities.get(2);
+        assertEquals("Tap button", tap.getTitle());
+        assertEquals(Long.valueOf(1709632000200L), tap.getStart());
+        assertEquals(Long.valueOf(1709632001000L), tap.getFinish());
+        assertEquals(tap.getFinish(), tap.getSubactivities().get(0).getFinish());
+
+        final ActionTestAttachment screenshot = tap.getAttachments().get(0);
+        assertEquals("Screenshot_1.heic", screenshot.getFilename());
+        assertEquals("P1", screenshot.getPayloadRefId());
+        assertEquals("5A0E2B8C-1D3F-4E6A-9B7C-0D1E2F3A4B51", screenshot.getUuid());
+
+        final ActionTestActivitySummary last = activities.get(3);
+        assertEquals(last.getStart(), last.getFinish());
+    }
+
+    @Test
+    public void shouldMarkActivitiesAssociatedWithFailure() throws IOException {
+        final ActionTestActivitySummary open = readActivities("Suite/testFail()").get(0).getActivities().get(1);
+
+        assertNull(open.getActivityType());
+        assertEquals(TestResultsReader.ASSERTION_FAILURE, open.getSubactivities().get(0).getActivityType());
+    }
+
+    @Test
+    public void shouldReadRunOfEveryDevice() throws IOException {
+        final List<TestRunActivities> runs = readActivities("Suite/testMulti()");
+
+        assertEquals(
+                List.of("iPhone 15", "iPad"),
+                runs.stream().map(TestRunActivities::getDeviceName).collect(Collectors.toList())
+        );
+        assertFalse(runs.get(1).getActivities().isEmpty());
+    }
+
+    @Test
+    public void shouldReadTestWithoutRuns() throws IOException {
+        assertTrue(readActivities("Suite/testSkipped()").isEmpty());
+    }
+
+    private static List<TestRunActivities> readActivities(final String testId) throws IOException {
+        final String name = testId.replace("/", "%2F").replace("(", "%28").replace(")", "%29");
+        return read("activities/" + name + ".json", TestResultsReader::readActivities);
+    }
+
+    private static <T> T read(final String name, final XcResultReader.ValueReader<T> reader) throws IOException {
+        final Path file = getResource("xcresult/xcode16/test-results/" + name);
+        try (JsonParser parser = FACTORY.createParser(file.toFile())) {
+            parser.nextToken();
+            return reader.read(parser);
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.eroshenkoam.xcresults.source;
+
+import io.eroshenkoam.xcresults.xcode.XcodeToolchain;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static io.eroshenkoam.xcresults.BundleFixtures.copy;
+import static io.eroshenkoam.xcresults.BundleFixtures.readCalls;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BulkAttachmentsXcResultSourceTest {
+
+    private static final String SCREENSHOT = "5A0E2B8C-1D3F-4E6A-9B7C-0D1E2F3A4B51";
+    private static final String LOG = "5A0E2B8C-1D3F-4E6A-9B7C-0D1E2F3A4B52";
+    private static final String MISSING = "5A0E2B8C-1D3F-4E6A-9B7C-0D1E2F3A4B54";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path bundle;
+    private Path output;
+    private BulkAttachmentsXcResultSource source;
+
+    @Before
+    public void setUp() throws IOException {
+        bundle = copy("xcode16", folder.getRoot().toPath().resolve("Tests.xcresult"));
+        output = folder.newFolder("output").toPath();
+        final XcodeToolchain toolchain = XcodeToolchain.detect(folder.newFolder("cache").toPath());
+        source = new BulkAttachmentsXcResultSource(
+                new XcResultToolSource(bundle, toolchain), folder.getRoot().toPath().resolve("staging")
+        );
+    }
+
+    @Test
+    public void shouldExportAllAttachmentsInSingleCall() throws IOException {
+        source.exportReference("P1", SCREENSHOT, output.resolve("screenshot"));
+        source.exportReference("L1", LOG.toLowerCase(), output.resolve("log"));
+
+        assertEquals("screenshot 1\n", Files.readString(output.resolve("screenshot")));
+        assertEquals("log\n", Files.readString(output.resolve("log")));
+        assertEquals(Map.of("export attachments", 1L), readCalls(bundle));
+    }
+
+    @Test
+    public void shouldExportAttachmentMissingFromManifestByPayloadId() throws IOException {
+        source.exportReference("P1", MISSING, output.resolve("screenshot"));
+
+        assertEquals("screenshot 1\n", Files.readString(output.resolve("screenshot")));
+        assertEquals(Map.of("export attachments", 1L, "export P1", 1L), readCalls(bundle));
+    }
+
+    @Test
+    public void shouldNotMatchFilesNotNamedByAttachmentId() throws IOException {
+        source.exportReference("L1", "Screenshot", output.resolve("log"));
+
+        assertEquals("log\n", Files.readString(output.resolve("log")));
+        assertEquals(Map.of("export L1", 1L), readCalls(bundle));
+    }
+
+    @Test
+    public void shouldExportOneByOneWhenBulkExportFails() throws IOException {
+        Files.createFile(bundle.resolve("attachments.fail"));
+
+        source.exportReference("P1", SCREENSHOT, output.resolve("screenshot"));
+        source.exportReference("L1", LOG, output.resolve("log"));
+
+        assertEquals("screenshot 1\n", Files.readString(output.resolve("screenshot")));
+        assertEquals("log\n", Files.readString(output.resolve("log")));
+        assertEquals(Map.of("export attachments", 1L, "export P1", 1L, "export L1", 1L), readCalls(bundle));
+    }
+
+    @Test
+    public void shouldNotExportInBulkForPayloadWithoutAttachment() throws IOException {
+        source.exportReference("FP1", null, output.resolve("failure"));
+
+        assertEquals("failure screenshot\n", Files.readString(output.resolve("failure")));
+        assertNull(readCalls(bundle).get("export attachments"));
+    }
+
+}
@@ -0,0 +1,70 @@
+package io.eroshenkoam.xcresults.source;
+
+import io.eroshenkoam.xcresults.bundle.XcResultBundle;
+import io.eroshenkoam.xcresults.xcode.XcodeToolchain;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static io.eroshenkoam.xcresults.BundleFixtures.copy;
+import static io.eroshenkoam.xcresults.BundleFixtures.readCalls;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NativeXcResultSourceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path bundle;
+    private Path output;
+    private NativeXcResultSource source;
+
+    @Before
+    public void setUp() throws IOException {
+        bundle = copy("native", folder.getRoot().toPath().resolve("Tests.xcresult"));
+        output = folder.newFolder("output").toPath();
+        final XcodeToolchain toolchain = XcodeToolchain.detect(folder.newFolder("cache").toPath());
+        source = new NativeXcResultSource(new XcResultBundle(bundle), new XcResultToolSource(bundle, toolchain));
+    }
+
+    @Test
+    public void shouldDetectBundleLayout() {
+        assertTrue(XcResultBundle.isBundle(bundle));
+        assertFalse(XcResultBundle.isBundle(bundle.resolve("Data")));
+    }
+
+    @Test
+    public void shouldCopyUncompressedPayload() throws IOException {
+        final Path exported = output.resolve("plain.txt");
+        source.exportReference("0~plain", "plain", exported);
+
+        assertEquals("plain payload\n", Files.readString(exported));
+        assertFalse(Files.exists(bundle.resolve("calls.log")));
+    }
+
+    @Test
+    public void shouldDecompressZstdPayload() throws IOException {
+        final Path exported = output.resolve("compressed.txt");
+        source.exportReference("0~compressed", "compressed", exported);
+
+        assertEquals("compressed payload\n", Files.readString(exported));
+        assertFalse(Files.exists(bundle.resolve("calls.log")));
+    }
+
+    @Test
+    public void shouldExportMissingPayloadWithFallback() throws IOException {
+        final Path exported = output.resolve("fallback.txt");
+        source.exportReference("0~fallback", "fallback", exported);
+
+        assertEquals("fallback payload\n", Files.readString(exported));
+        assertEquals(Long.valueOf(1), readCalls(bundle).get("export 0~fallback"));
+    }
+
+}
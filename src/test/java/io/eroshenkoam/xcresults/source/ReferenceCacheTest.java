@@ -0,0 +1,104 @@
+package io.eroshenkoam.xcresults.source;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReferenceCacheTest {
+
+    private static final int ENTRY_SIZE = 40;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path cachePath;
+
+    @Before
+    public void setUp() throws IOException {
+        cachePath = folder.newFolder("cache").toPath();
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntriesWhileStoring() throws IOException {
+        final ReferenceCache cache = new ReferenceCache(cachePath, 100);
+        final Path first = store(cache, "first");
+        final Path second = store(cache, "second");
+        cache.open(first).close();
+
+        final Path third = store(cache, "third");
+
+        assertTrue(Files.exists(first));
+        assertFalse(Files.exists(second));
+        assertTrue(Files.exists(third));
+        assertEquals(1, cache.getEvicted());
+    }
+
+    @Test
+    public void shouldKeepOpenedEntryReadableAfterEviction() throws IOException {
+        final ReferenceCache cache = new ReferenceCache(cachePath, 100);
+        final Path first = store(cache, "first");
+        try (InputStream input = cache.open(first)) {
+            store(cache, "second");
+            store(cache, "third");
+
+            assertFalse(Files.exists(first));
+            assertEquals(ENTRY_SIZE, input.readAllBytes().length);
+        }
+        assertNull(cache.open(first));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void shouldKeepStoredEntryLargerThanCache() throws IOException {
+        final ReferenceCache cache = new ReferenceCache(cachePath, 10);
+        final Path first = store(cache, "first");
+        final Path second = store(cache, "second");
+
+        assertFalse(Files.exists(first));
+        assertTrue(Files.exists(second));
+    }
+
+    @Test
+    public void shouldEvictEntriesOfPreviousRunsOldestFirst() throws IOException {
+        final Path old = write("old", 1_000);
+        final Path recent = write("recent", 2_000);
+        final Path latest = write("latest", 3_000);
+
+        new ReferenceCache(cachePath, 3 * ENTRY_SIZE).evict();
+        assertTrue(Files.exists(old));
+
+        new ReferenceCache(cachePath, 2 * ENTRY_SIZE).evict();
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(latest));
+    }
+
+    private Path store(final ReferenceCache cache, final String name) throws IOException {
+        final Path entry = cache.getBundlePath("bundle").resolve(name);
+        final Path temp = cache.createTempFile(entry);
+        Files.write(temp, new byte[ENTRY_SIZE]);
+        cache.store(temp, entry);
+        return entry;
+    }
+
+    private Path write(final String name, final long lastUsed) throws IOException {
+        final Path entry = Files.createDirectories(cachePath.resolve("bundle")).resolve(name);
+        Files.write(entry, new byte[ENTRY_SIZE]);
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(lastUsed));
+        return entry;
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.eroshenkoam.xcresults.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class ExportMetricsTest {
+
+    private static final int ALLOCATED = 64 * 1024 * 1024;
+
+    @Test
+    public void shouldKeepHeapUsageSampledWhileMeasuring() {
+        final ExportMetrics metrics = new ExportMetrics();
+        byte[] allocated = new byte[ALLOCATED];
+        metrics.record(ExportMetrics.PHASE_FORMAT, System.nanoTime());
+        final long sampled = metrics.getPeakHeap();
+        allocated = null;
+        System.gc();
+
+        assertTrue(sampled >= ALLOCATED);
+        assertTrue(metrics.getPeakHeap() >= sampled);
+    }
+
+}
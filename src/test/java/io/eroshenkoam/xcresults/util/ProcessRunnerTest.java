@@ -0,0 +1,131 @@
+package io.eroshenkoam.xcresults.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ProcessRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldNotRetryNonZeroExitCode() throws IOException {
+        final Path runs = folder.newFile("runs").toPath();
+        final ProcessRunner runner = new ProcessRunner(0, Duration.ZERO, 2);
+
+        final ProcessException e = run(runner, String.format("echo run >> '%s'; echo broken >&2; exit 3", runs));
+
+        assertEquals(3, e.getExitCode());
+        assertFalse(e.isRetryable());
+        assertTrue(e.getMessage(), e.getMessage().endsWith("broken"));
+        assertEquals(1, Files.readAllLines(runs).size());
+    }
+
+    @Test
+    public void shouldRetryProcessKilledBySignal() throws IOException {
+        final Path runs = folder.newFile("runs").toPath();
+        final ProcessRunner runner = new ProcessRunner(0, Duration.ZERO, 2);
+
+        final ProcessException e = run(runner, String.format("echo run >> '%s'; kill -9 $$", runs));
+
+        assertEquals(137, e.getExitCode());
+        assertTrue(e.isRetryable());
+        assertEquals(3, Files.readAllLines(runs).size());
+    }
+
+    @Test
+    public void shouldNotRetryAfterTimeout() throws IOException {
+        final Path runs = folder.newFile("runs").toPath();
+        final ProcessRunner runner = new ProcessRunner(0, Duration.ofMillis(200), 2);
+
+        final long start = System.nanoTime();
+        final ProcessException e = run(runner, String.format("echo run >> '%s'; exec sleep 30", runs));
+
+        assertEquals(-1, e.getExitCode());
+        assertFalse(e.isRetryable());
+        assertEquals(1, Files.readAllLines(runs).size());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void shouldReportReaderFailureInsteadOfBrokenPipe() throws IOException {
+        final Path runs = folder.newFile("runs").toPath();
+        final ProcessRunner runner = new ProcessRunner(0, Duration.ZERO, 2);
+        final String script = String.format("echo run >> '%s'; head -c 50000000 /dev/zero", runs);
+        try {
+            runner.run(new ProcessBuilder("sh", "-c", script), input -> {
+                IOUtils.skipFully(input, 1024);
+                throw new IOException("unexpected token");
+            }).join();
+            fail("Reader failure should fail the run");
+        } catch (CompletionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IOException);
+            assertEquals("unexpected token", e.getCause().getMessage());
+        }
+        assertEquals(1, Files.readAllLines(runs).size());
+    }
+
+    @Test
+    public void shouldMarkStartFailureAsRetryable() {
+        final ProcessRunner runner = new ProcessRunner(0, Duration.ZERO, 0);
+        try {
+            runner.run(new ProcessBuilder(folder.getRoot().toPath().resolve("missing").toString()),
+                    input -> IOUtils.toString(input, StandardCharsets.UTF_8)).join();
+            fail("Missing command should fail to start");
+        } catch (CompletionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof ProcessException);
+            assertTrue(((ProcessException) e.getCause()).isRetryable());
+        }
+    }
+
+    @Test
+    public void shouldKillProcessWhenReaderFails() throws InterruptedException {
+        final ProcessRunner runner = new ProcessRunner(0, Duration.ZERO, 2);
+        final AtomicLong pid = new AtomicLong();
+        try {
+            runner.run(new ProcessBuilder("sh", "-c", "echo $$; exec sleep 30"), input -> {
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+                pid.set(Long.parseLong(reader.readLine().trim()));
+                throw new IllegalStateException("unexpected output");
+            }).join();
+            fail("Reader failure should fail the run");
+        } catch (CompletionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IllegalStateException);
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ProcessHandle.of(pid.get()).map(ProcessHandle::isAlive).orElse(false)) {
+            assertTrue("Process should be killed", System.nanoTime() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private static ProcessException run(final ProcessRunner runner, final String script) {
+        try {
+            runner.run(new ProcessBuilder("sh", "-c", script), input -> IOUtils.toString(input, StandardCharsets.UTF_8))
+                    .join();
+        } catch (CompletionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof ProcessException);
+            return (ProcessException) e.getCause();
+        }
+        throw new AssertionError("Command should fail: " + script);
+    }
+
+}